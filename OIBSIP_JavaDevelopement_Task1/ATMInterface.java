@@ -4,49 +4,164 @@
  * Author: Aravind M S
  */
 
+import java.io.*;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.text.SimpleDateFormat;
+import java.util.stream.Stream;
 
 public class ATMInterface {
-    private static Scanner input = new Scanner(System.in);
-    private static Map<String, BankAccount> accountDatabase = new HashMap<>();
-    private static BankAccount loggedInAccount = null;
+    private static final String DATA_DIRECTORY = "atm-data";
+    private static final int HISTORY_PAGE_SIZE = 10;
+    private static final DateTimeFormatter RECEIPT_TIME_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+    // Unknown account numbers are checked against this, so they take as long to reject as wrong PINs
+    private static final PinCredential UNKNOWN_ACCOUNT = PinCredential.create("");
+    private static LedgerService ledger;
+    
+    // Per-session state; the console and every server connection get their own instance
+    private final Scanner input;
+    private final PrintStream out;
+    private BankAccount loggedInAccount = null;
+    private boolean sessionActive = true;
+    
+    public ATMInterface(InputStream in, PrintStream out) {
+        this.input = new Scanner(in);
+        this.out = out;
+    }
     
     public static void main(String[] args) {
-        setupSampleAccounts();
+        if ((args.length == 3 || args.length == 4) && args[0].equals("--load-test")) {
+            runLoadTest(args);
+            return;
+        }
+        
+        loadAccounts();
+        AtmMetrics.startReporting(Paths.get(DATA_DIRECTORY));
+        
+        if (args.length == 3 && args[0].equals("--bulk-transfer")) {
+            BulkTransfer.run(ledger, args[1], Paths.get(args[2]));
+            shutdown();
+            return;
+        }
+        
+        if (args.length == 2 && args[0].equals("--server")) {
+            try {
+                new ATMServer(Integer.parseInt(args[1])).serve();
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid port: " + args[1]);
+            } catch (IOException e) {
+                System.out.println("Server stopped: " + e.getMessage());
+            }
+            shutdown();
+            return;
+        }
+        
+        if (args.length == 5 && args[0].equals("--statement")) {
+            StatementExporter.run(ledger, args[1], args[2], args[3], Paths.get(args[4]));
+            shutdown();
+            return;
+        }
+        
+        new ATMInterface(System.in, ConsoleRenderer.screen()).run();
+        shutdown();
+    }
+    
+    public void run() {
         displayWelcomeBanner();
         
-        while (true) {
-            if (loggedInAccount == null) {
-                handleLoginProcess();
-            } else {
-                displayMainMenu();
+        try {
+            while (sessionActive) {
+                if (loggedInAccount == null) {
+                    handleLoginProcess();
+                } else {
+                    displayMainMenu();
+                }
+            }
+        } catch (NoSuchElementException e) {
+            // Input closed (terminal EOF or client disconnect); end the session quietly
+        }
+        out.flush();
+    }
+    
+    // The load test gets a throwaway ledger, so its customers never end up in the real one
+    private static void runLoadTest(String[] args) {
+        int customers;
+        int sessionsPerCustomer;
+        try {
+            customers = Integer.parseInt(args[1]);
+            sessionsPerCustomer = Integer.parseInt(args[2]);
+        } catch (NumberFormatException e) {
+            System.out.println("Usage: --load-test <customers> <sessions per customer> [workload file]");
+            return;
+        }
+        
+        Path directory;
+        try {
+            directory = Files.createTempDirectory("atm-load-test");
+            ledger = LedgerService.open(directory);
+        } catch (IOException e) {
+            System.out.println("Could not create the load test ledger: " + e.getMessage());
+            return;
+        }
+        // Metrics dumps go to the scratch directory too, so synthetic load never shows up in atm-data
+        AtmMetrics.startReporting(directory);
+        try {
+            LoadDriver.run(ledger, customers, sessionsPerCustomer, args.length == 4 ? Paths.get(args[3]) : null);
+        } finally {
+            shutdown();
+            deleteDirectory(directory);
+        }
+    }
+    
+    private static void deleteDirectory(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            // Deepest first, so every directory is empty by the time it is deleted
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
             }
+        } catch (IOException e) {
+            System.out.println("Warning: could not delete " + directory + ": " + e.getMessage());
+        }
+    }
+    
+    private static void loadAccounts() {
+        try {
+            ledger = LedgerService.open(Paths.get(DATA_DIRECTORY));
+        } catch (IOException e) {
+            System.out.println("Could not open ledger data: " + e.getMessage());
+            System.out.println("Continuing without saving transactions.");
+            ledger = new LedgerService();
+        }
+        
+        // First run: the journal is empty, so seed it with the sample accounts
+        if (ledger.getAccounts().isEmpty()) {
+            setupSampleAccounts();
         }
     }
     
     private static void setupSampleAccounts() {
-        accountDatabase.put("12345", new BankAccount("12345", "1234", "Aravind Sreekumar", 15000.0));
-        accountDatabase.put("67890", new BankAccount("67890", "5678", "Shreyas R Pillai", 25000.0));
-        accountDatabase.put("11111", new BankAccount("11111", "0000", "Vighnesh C", 5000.0));
+        ledger.openAccount("12345", "1234", "Aravind Sreekumar", Money.ofRupees(15000));
+        ledger.openAccount("67890", "5678", "Shreyas R Pillai", Money.ofRupees(25000));
+        ledger.openAccount("11111", "0000", "Vighnesh C", Money.ofRupees(5000));
     }
     
-    private static void displayWelcomeBanner() {
-        System.out.println("\n" + repeatChar('=', 55));
-        System.out.println("          WELCOME TO ATM BANKING SYSTEM");
-        System.out.println("              Your Money, Our Priority");
-        System.out.println(repeatChar('=', 55));
+    private void displayWelcomeBanner() {
+        out.println("\n" + repeatChar('=', 55));
+        out.println("          WELCOME TO ATM BANKING SYSTEM");
+        out.println("              Your Money, Our Priority");
+        out.println(repeatChar('=', 55));
     }
     
-    private static void handleLoginProcess() {
-        System.out.println("\nPlease authenticate to continue:");
-        System.out.println("1. Login to your account");
-        System.out.println("2. View sample credentials");
-        System.out.println("3. Exit application");
-        System.out.print("\nEnter your choice: ");
+    private void handleLoginProcess() {
+        out.println("\nPlease authenticate to continue:");
+        out.println("1. Login to your account");
+        out.println("2. View sample credentials");
+        out.println("3. Exit application");
+        out.print("\nEnter your choice: ");
         
         try {
-            int option = Integer.parseInt(input.nextLine().trim());
+            int option = Integer.parseInt(readLine().trim());
             
             switch (option) {
                 case 1:
@@ -59,65 +174,76 @@ public class ATMInterface {
                     exitApplication();
                     break;
                 default:
-                    System.out.println("Invalid choice. Please select 1, 2, or 3.");
+                    out.println("Invalid choice. Please select 1, 2, or 3.");
             }
         } catch (NumberFormatException e) {
-            System.out.println("Invalid input. Please enter a number.");
+            out.println("Invalid input. Please enter a number.");
         }
     }
     
-    private static void performLogin() {
-        System.out.println("\n" + repeatChar('-', 40));
-        System.out.println("           ACCOUNT LOGIN");
-        System.out.println(repeatChar('-', 40));
+    private void performLogin() {
+        out.println("\n" + repeatChar('-', 40));
+        out.println("           ACCOUNT LOGIN");
+        out.println(repeatChar('-', 40));
+        
+        out.print("Enter Account Number: ");
+        String accountNum = readLine().trim();
         
-        System.out.print("Enter Account Number: ");
-        String accountNum = input.nextLine().trim();
+        out.print("Enter PIN: ");
+        String pin = readLine().trim();
         
-        System.out.print("Enter PIN: ");
-        String pin = input.nextLine().trim();
+        AtmOperationEvent event = AtmMetrics.begin();
+        LoginResult result = validateCredentials(accountNum, pin);
+        AtmMetrics.recordLogin(event, accountNum, result);
         
-        if (validateCredentials(accountNum, pin)) {
-            loggedInAccount = accountDatabase.get(accountNum);
-            System.out.println("\nLogin successful!");
-            System.out.println("Welcome, " + loggedInAccount.getAccountHolderName());
-            loggedInAccount.recordActivity("Login", 0.0, "Account accessed successfully");
-        } else {
-            System.out.println("\nLogin failed!");
-            System.out.println("Invalid account number or PIN. Please try again.");
+        switch (result) {
+            case SUCCESS:
+                loggedInAccount = ledger.findAccount(accountNum);
+                out.println("\nLogin successful!");
+                out.println("Welcome, " + loggedInAccount.getAccountHolderName());
+                loggedInAccount.recordActivity(TransactionType.LOGIN, 0);
+                break;
+            default:
+                // One message for unknown, wrong and locked alike, so failures do not reveal which accounts exist
+                out.println("\nLogin failed!");
+                out.println("Invalid account number or PIN, or too many failed attempts. Please try again later.");
         }
     }
     
-    private static boolean validateCredentials(String accountNum, String pin) {
-        BankAccount account = accountDatabase.get(accountNum);
-        return account != null && account.getPinCode().equals(pin);
+    private LoginResult validateCredentials(String accountNum, String pin) {
+        BankAccount account = ledger.findAccount(accountNum);
+        if (account == null) {
+            UNKNOWN_ACCOUNT.matches(pin);
+            return LoginResult.INVALID_CREDENTIALS;
+        }
+        return account.getPinCredential().verify(pin);
     }
     
-    private static void displaySampleCredentials() {
-        System.out.println("\n" + repeatChar('=', 50));
-        System.out.println("         SAMPLE ACCOUNT CREDENTIALS");
-        System.out.println(repeatChar('=', 50));
-        System.out.println("Account Number: 12345  |  PIN: 1234");
-        System.out.println("Account Number: 67890  |  PIN: 5678");
-        System.out.println("Account Number: 11111  |  PIN: 0000");
-        System.out.println(repeatChar('=', 50));
+    private void displaySampleCredentials() {
+        out.println("\n" + repeatChar('=', 50));
+        out.println("         SAMPLE ACCOUNT CREDENTIALS");
+        out.println(repeatChar('=', 50));
+        out.println("Account Number: 12345  |  PIN: 1234");
+        out.println("Account Number: 67890  |  PIN: 5678");
+        out.println("Account Number: 11111  |  PIN: 0000");
+        out.println(repeatChar('=', 50));
     }
     
-    private static void displayMainMenu() {
-        System.out.println("\n" + repeatChar('=', 50));
-        System.out.println("ATM MAIN MENU");
-        System.out.println("Account: " + loggedInAccount.getAccountNumber() + 
+    private void displayMainMenu() {
+        out.println("\n" + repeatChar('=', 50));
+        out.println("ATM MAIN MENU");
+        out.println("Account: " + loggedInAccount.getAccountNumber() + 
                          " | " + loggedInAccount.getAccountHolderName());
-        System.out.println(repeatChar('=', 50));
-        System.out.println("1. Transaction History");
-        System.out.println("2. Withdraw");
-        System.out.println("3. Deposit");
-        System.out.println("4. Transfer");
-        System.out.println("5. Quit");
-        System.out.print("\nSelect an option: ");
+        out.println(repeatChar('=', 50));
+        out.println("1. Transaction History");
+        out.println("2. Withdraw");
+        out.println("3. Deposit");
+        out.println("4. Transfer");
+        out.println("5. Quit");
+        out.print("\nSelect an option: ");
         
         try {
-            int choice = Integer.parseInt(input.nextLine().trim());
+            int choice = Integer.parseInt(readLine().trim());
             
             switch (choice) {
                 case 1:
@@ -136,210 +262,286 @@ public class ATMInterface {
                     performLogout();
                     break;
                 default:
-                    System.out.println("Invalid option. Please select 1-5.");
+                    out.println("Invalid option. Please select 1-5.");
             }
         } catch (NumberFormatException e) {
-            System.out.println("Invalid input. Please enter a number.");
+            out.println("Invalid input. Please enter a number.");
         }
     }
     
-    private static void viewTransactionHistory() {
-        System.out.println("\n" + repeatChar('=', 70));
-        System.out.println("TRANSACTION HISTORY");
-        System.out.println("Account: " + loggedInAccount.getAccountNumber());
-        System.out.println("Current Balance: Rs. " + formatAmount(loggedInAccount.getAccountBalance()));
-        System.out.println(repeatChar('=', 70));
+    private void viewTransactionHistory() {
+        out.println("\n" + repeatChar('=', 70));
+        out.println("TRANSACTION HISTORY");
+        out.println("Account: " + loggedInAccount.getAccountNumber());
+        out.println("Current Balance: Rs. " + formatAmount(loggedInAccount.getAccountBalance()));
+        out.println(repeatChar('=', 70));
         
-        List<TransactionRecord> history = loggedInAccount.getTransactionHistory();
+        int total = loggedInAccount.getTransactionCount();
         
-        if (history.isEmpty()) {
-            System.out.println("No transactions available.");
+        if (total == 0) {
+            out.println("No transactions available.");
             return;
         }
         
-        System.out.printf("%-20s %-15s %-15s %-20s%n", 
-                         "Date & Time", "Type", "Amount (Rs.)", "Details");
-        System.out.println(repeatChar('-', 70));
+        StringBuilder row = new StringBuilder(96);
+        appendColumn(row, "Date & Time", 20);
+        appendColumn(row, "Type", 15);
+        appendColumn(row, "Amount (Rs.)", 15);
+        row.append("Details");
+        out.println(row);
+        out.println(repeatChar('-', 70));
         
-        for (TransactionRecord record : history) {
-            System.out.printf("%-20s %-15s %-15s %-20s%n",
-                record.getFormattedDateTime(),
-                record.getTransactionType(),
-                formatAmount(Math.abs(record.getTransactionAmount())),
-                record.getTransactionDetails()
-            );
+        // Newest first, one page at a time; only the current page is ever loaded
+        int shown = 0;
+        for (int page = 0; shown < total; page++) {
+            List<TransactionRecord> records = loggedInAccount.getTransactionPage(page, HISTORY_PAGE_SIZE);
+            if (records.isEmpty()) {
+                break;
+            }
+            
+            // One reusable row buffer instead of a Formatter per printf call
+            for (TransactionRecord record : records) {
+                row.setLength(0);
+                appendHistoryRow(row, record);
+                out.println(row);
+            }
+            shown += records.size();
+            
+            if (shown < total) {
+                out.print("-- Showing " + shown + " of " + total + 
+                               ". Press Enter for older transactions or Q to stop: ");
+                if (readLine().trim().equalsIgnoreCase("q")) {
+                    break;
+                }
+            }
         }
-        System.out.println(repeatChar('=', 70));
+        out.println(repeatChar('=', 70));
     }
     
-    private static void performWithdrawal() {
-        System.out.println("\n" + repeatChar('-', 40));
-        System.out.println("         CASH WITHDRAWAL");
-        System.out.println(repeatChar('-', 40));
-        System.out.println("Available Balance: Rs. " + formatAmount(loggedInAccount.getAccountBalance()));
-        System.out.print("Enter amount to withdraw: Rs. ");
+    private void performWithdrawal() {
+        out.println("\n" + repeatChar('-', 40));
+        out.println("         CASH WITHDRAWAL");
+        out.println(repeatChar('-', 40));
+        out.println("Available Balance: Rs. " + formatAmount(loggedInAccount.getAccountBalance()));
+        out.print("Enter amount to withdraw: Rs. ");
         
         try {
-            double amount = Double.parseDouble(input.nextLine().trim());
+            long amount = Money.parse(readLine());
             
-            if (amount <= 0) {
-                System.out.println("Amount must be greater than zero.");
-                return;
-            }
-            
-            if (amount > loggedInAccount.getAccountBalance()) {
-                System.out.println("Insufficient balance!");
-                System.out.println("Your current balance is Rs. " + 
-                                 formatAmount(loggedInAccount.getAccountBalance()));
-                return;
-            }
+            AtmOperationEvent event = AtmMetrics.begin();
+            LedgerResult result = ledger.withdraw(loggedInAccount, amount);
+            AtmMetrics.recordLedger(event, AtmMetrics.Operation.WITHDRAWAL, loggedInAccount.getAccountNumber(),
+                                    amount, result);
             
-            if (amount > 50000) {
-                System.out.println("Withdrawal limit exceeded!");
-                System.out.println("Maximum withdrawal per transaction: Rs. 50,000");
-                return;
+            switch (result) {
+                case INVALID_AMOUNT:
+                    out.println("Amount must be greater than zero.");
+                    return;
+                case INSUFFICIENT_BALANCE:
+                    out.println("Insufficient balance!");
+                    out.println("Your current balance is Rs. " + 
+                                     formatAmount(loggedInAccount.getAccountBalance()));
+                    return;
+                case LIMIT_EXCEEDED:
+                    out.println("Withdrawal limit exceeded!");
+                    out.println("Maximum withdrawal per transaction: Rs. 50,000");
+                    return;
+                case DAILY_LIMIT_EXCEEDED:
+                    out.println("Daily withdrawal limit reached!");
+                    out.println("Maximum withdrawals in 24 hours: Rs. 1,00,000");
+                    return;
+                case MONTHLY_LIMIT_EXCEEDED:
+                    out.println("Monthly limit reached!");
+                    out.println("Maximum withdrawals and transfers in 30 days: Rs. 5,00,000");
+                    return;
+                default:
+                    break;
             }
             
-            loggedInAccount.deductAmount(amount);
-            System.out.println("\nWithdrawal successful!");
-            System.out.println("Amount withdrawn: Rs. " + formatAmount(amount));
-            System.out.println("Remaining balance: Rs. " + formatAmount(loggedInAccount.getAccountBalance()));
-            System.out.println("Transaction completed at: " + getCurrentDateTime());
+            out.println("\nWithdrawal successful!");
+            out.println("Amount withdrawn: Rs. " + formatAmount(amount));
+            out.println("Remaining balance: Rs. " + formatAmount(loggedInAccount.getAccountBalance()));
+            out.println("Transaction completed at: " + getCurrentDateTime());
             
         } catch (NumberFormatException e) {
-            System.out.println("Invalid amount. Please enter a valid number.");
+            out.println("Invalid amount. Please enter a valid number.");
         }
     }
     
-    private static void performDeposit() {
-        System.out.println("\n" + repeatChar('-', 40));
-        System.out.println("         CASH DEPOSIT");
-        System.out.println(repeatChar('-', 40));
-        System.out.println("Current Balance: Rs. " + formatAmount(loggedInAccount.getAccountBalance()));
-        System.out.print("Enter amount to deposit: Rs. ");
+    private void performDeposit() {
+        out.println("\n" + repeatChar('-', 40));
+        out.println("         CASH DEPOSIT");
+        out.println(repeatChar('-', 40));
+        out.println("Current Balance: Rs. " + formatAmount(loggedInAccount.getAccountBalance()));
+        out.print("Enter amount to deposit: Rs. ");
         
         try {
-            double amount = Double.parseDouble(input.nextLine().trim());
+            long amount = Money.parse(readLine());
             
-            if (amount <= 0) {
-                System.out.println("Amount must be greater than zero.");
-                return;
-            }
+            AtmOperationEvent event = AtmMetrics.begin();
+            LedgerResult result = ledger.deposit(loggedInAccount, amount);
+            AtmMetrics.recordLedger(event, AtmMetrics.Operation.DEPOSIT, loggedInAccount.getAccountNumber(),
+                                    amount, result);
             
-            if (amount > 100000) {
-                System.out.println("Deposit limit exceeded!");
-                System.out.println("Maximum deposit per transaction: Rs. 1,00,000");
-                return;
+            switch (result) {
+                case INVALID_AMOUNT:
+                    out.println("Amount must be greater than zero.");
+                    return;
+                case LIMIT_EXCEEDED:
+                    out.println("Deposit limit exceeded!");
+                    out.println("Maximum deposit per transaction: Rs. 1,00,000");
+                    return;
+                default:
+                    break;
             }
             
-            loggedInAccount.addAmount(amount);
-            System.out.println("\nDeposit successful!");
-            System.out.println("Amount deposited: Rs. " + formatAmount(amount));
-            System.out.println("Updated balance: Rs. " + formatAmount(loggedInAccount.getAccountBalance()));
-            System.out.println("Transaction completed at: " + getCurrentDateTime());
+            out.println("\nDeposit successful!");
+            out.println("Amount deposited: Rs. " + formatAmount(amount));
+            out.println("Updated balance: Rs. " + formatAmount(loggedInAccount.getAccountBalance()));
+            out.println("Transaction completed at: " + getCurrentDateTime());
             
         } catch (NumberFormatException e) {
-            System.out.println("Invalid amount. Please enter a valid number.");
+            out.println("Invalid amount. Please enter a valid number.");
         }
     }
     
-    private static void performTransfer() {
-        System.out.println("\n" + repeatChar('-', 40));
-        System.out.println("         FUND TRANSFER");
-        System.out.println(repeatChar('-', 40));
-        System.out.println("Available Balance: Rs. " + formatAmount(loggedInAccount.getAccountBalance()));
+    private void performTransfer() {
+        out.println("\n" + repeatChar('-', 40));
+        out.println("         FUND TRANSFER");
+        out.println(repeatChar('-', 40));
+        out.println("Available Balance: Rs. " + formatAmount(loggedInAccount.getAccountBalance()));
         
-        System.out.print("Enter recipient account number: ");
-        String recipientAccountNum = input.nextLine().trim();
+        out.print("Enter recipient account number: ");
+        String recipientAccountNum = readLine().trim();
         
         if (recipientAccountNum.equals(loggedInAccount.getAccountNumber())) {
-            System.out.println("Cannot transfer to the same account!");
+            out.println("Cannot transfer to the same account!");
             return;
         }
         
-        BankAccount recipientAccount = accountDatabase.get(recipientAccountNum);
+        BankAccount recipientAccount = ledger.findAccount(recipientAccountNum);
         if (recipientAccount == null) {
-            System.out.println("Recipient account not found!");
+            out.println("Recipient account not found!");
             return;
         }
         
-        System.out.println("Recipient: " + recipientAccount.getAccountHolderName());
-        System.out.print("Enter amount to transfer: Rs. ");
+        out.println("Recipient: " + recipientAccount.getAccountHolderName());
+        out.print("Enter amount to transfer: Rs. ");
         
         try {
-            double amount = Double.parseDouble(input.nextLine().trim());
-            
-            if (amount <= 0) {
-                System.out.println("Amount must be greater than zero.");
-                return;
-            }
+            long amount = Money.parse(readLine());
             
-            if (amount > loggedInAccount.getAccountBalance()) {
-                System.out.println("Insufficient balance!");
-                return;
-            }
+            AtmOperationEvent event = AtmMetrics.begin();
+            LedgerResult result = ledger.transfer(loggedInAccount, recipientAccount, amount);
+            AtmMetrics.recordLedger(event, AtmMetrics.Operation.TRANSFER, loggedInAccount.getAccountNumber(),
+                                    amount, result);
             
-            if (amount > 25000) {
-                System.out.println("Transfer limit exceeded!");
-                System.out.println("Maximum transfer per transaction: Rs. 25,000");
-                return;
+            switch (result) {
+                case INVALID_AMOUNT:
+                    out.println("Amount must be greater than zero.");
+                    return;
+                case INSUFFICIENT_BALANCE:
+                    out.println("Insufficient balance!");
+                    return;
+                case LIMIT_EXCEEDED:
+                    out.println("Transfer limit exceeded!");
+                    out.println("Maximum transfer per transaction: Rs. 25,000");
+                    return;
+                case DAILY_LIMIT_EXCEEDED:
+                    out.println("Daily transfer limit reached!");
+                    out.println("Maximum transfers in 24 hours: Rs. 1,00,000");
+                    return;
+                case MONTHLY_LIMIT_EXCEEDED:
+                    out.println("Monthly limit reached!");
+                    out.println("Maximum withdrawals and transfers in 30 days: Rs. 5,00,000");
+                    return;
+                default:
+                    break;
             }
             
-            // Execute transfer
-            loggedInAccount.deductAmount(amount);
-            recipientAccount.addAmount(amount);
-            
-            // Record transactions
-            loggedInAccount.recordActivity("Transfer Out", -amount, 
-                "To " + recipientAccount.getAccountHolderName() + " (" + recipientAccountNum + ")");
-            recipientAccount.recordActivity("Transfer In", amount, 
-                "From " + loggedInAccount.getAccountHolderName() + " (" + loggedInAccount.getAccountNumber() + ")");
-            
-            System.out.println("\nTransfer successful!");
-            System.out.println("Amount transferred: Rs. " + formatAmount(amount));
-            System.out.println("Recipient: " + recipientAccount.getAccountHolderName());
-            System.out.println("Remaining balance: Rs. " + formatAmount(loggedInAccount.getAccountBalance()));
-            System.out.println("Transaction completed at: " + getCurrentDateTime());
+            out.println("\nTransfer successful!");
+            out.println("Amount transferred: Rs. " + formatAmount(amount));
+            out.println("Recipient: " + recipientAccount.getAccountHolderName());
+            out.println("Remaining balance: Rs. " + formatAmount(loggedInAccount.getAccountBalance()));
+            out.println("Transaction completed at: " + getCurrentDateTime());
             
         } catch (NumberFormatException e) {
-            System.out.println("Invalid amount. Please enter a valid number.");
+            out.println("Invalid amount. Please enter a valid number.");
         }
     }
     
-    private static void performLogout() {
-        System.out.println("\nLogging out...");
-        System.out.println("Thank you for using our ATM service, " + 
+    private void performLogout() {
+        out.println("\nLogging out...");
+        out.println("Thank you for using our ATM service, " + 
                          loggedInAccount.getAccountHolderName() + "!");
         
-        loggedInAccount.recordActivity("Logout", 0.0, "Session ended");
+        loggedInAccount.recordActivity(TransactionType.LOGOUT, 0);
         loggedInAccount = null;
         
-        System.out.println("\n" + repeatChar('=', 50));
-        System.out.println("Session terminated successfully.");
-        System.out.println("Have a great day!");
-        System.out.println(repeatChar('=', 50));
+        out.println("\n" + repeatChar('=', 50));
+        out.println("Session terminated successfully.");
+        out.println("Have a great day!");
+        out.println(repeatChar('=', 50));
+    }
+    
+    private void exitApplication() {
+        out.println("\nThank you for using our ATM Banking System!");
+        out.println("Goodbye!");
+        sessionActive = false;
+    }
+    
+    // Prompts are printed without a newline, so push them out before blocking on input
+    private String readLine() {
+        out.flush();
+        return input.nextLine();
+    }
+    
+    
+    private static void shutdown() {
+        AtmMetrics.stopReporting();
+        try {
+            ledger.close();
+        } catch (IOException e) {
+            System.out.println("Warning: could not close ledger journal: " + e.getMessage());
+        }
     }
     
-    private static void exitApplication() {
-        System.out.println("\nThank you for using our ATM Banking System!");
-        System.out.println("Goodbye!");
-        System.exit(0);
+    // Package-private so LedgerBenchmark can measure it
+    static String formatAmount(long amount) {
+        return Money.format(amount);
     }
     
-    private static String formatAmount(double amount) {
-        return String.format("%.2f", amount);
+    // Same columns as the header printed by viewTransactionHistory
+    static void appendHistoryRow(StringBuilder row, TransactionRecord record) {
+        record.appendFormattedDateTime(row);
+        padTo(row, 20);
+        row.append(' ');
+        appendColumn(row, record.getTransactionType(), 15);
+        int amountStart = row.length();
+        Money.append(row, Math.abs(record.getTransactionAmount()));
+        padTo(row, amountStart + 15);
+        record.appendDetails(row.append(' '));
     }
     
     private static String getCurrentDateTime() {
-        SimpleDateFormat formatter = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
-        return formatter.format(new Date());
+        return LocalDateTime.now().format(RECEIPT_TIME_FORMAT);
     }
     
-    private static String repeatChar(char ch, int count) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < count; i++) {
-            sb.append(ch);
+    // Left-aligned column followed by a single space, like "%-<width>s "
+    private static void appendColumn(StringBuilder row, String text, int width) {
+        int start = row.length();
+        row.append(text);
+        padTo(row, start + width);
+        row.append(' ');
+    }
+    
+    private static void padTo(StringBuilder row, int length) {
+        while (row.length() < length) {
+            row.append(' ');
         }
-        return sb.toString();
+    }
+    
+    private static String repeatChar(char ch, int count) {
+        return ConsoleRenderer.rule(ch, count);
     }
 }
@@ -0,0 +1,60 @@
+/**
+ * Multi-session ATM server.
+ * Usage: java ATMInterface --server <port>, then connect with e.g. "nc localhost <port>".
+ * Every connection gets its own ATMInterface session over the shared ledger.
+ * On the Java 17 target every connection holds one platform thread from a
+ * cached pool for as long as it stays open, so thread count and memory grow
+ * with the number of connected customers. Run on Java 21 or later, the same
+ * code puts sessions on virtual threads instead.
+ */
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ATMServer {
+    private static final int ACCEPT_BACKLOG = 1024;
+    
+    private final int port;
+    
+    public ATMServer(int port) {
+        this.port = port;
+    }
+    
+    public void serve() throws IOException {
+        ExecutorService sessions = newSessionExecutor();
+        try (ServerSocket server = new ServerSocket(port, ACCEPT_BACKLOG)) {
+            System.out.println("ATM server listening on port " + port);
+            while (true) {
+                Socket client = server.accept();
+                sessions.execute(() -> handleSession(client));
+            }
+        } finally {
+            sessions.shutdownNow();
+        }
+    }
+    
+    private void handleSession(Socket client) {
+        try (Socket socket = client) {
+            PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), false, "UTF-8");
+            new ATMInterface(socket.getInputStream(), out).run();
+        } catch (IOException e) {
+            // Client disconnected; nothing else to clean up
+        }
+    }
+    
+    // Also used by LoadDriver for its simulated customers
+    static ExecutorService newSessionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            System.out.println("Sessions run on virtual threads.");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Sessions use one platform thread per connection (virtual threads need Java 21).");
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Process-wide ATM metrics.
+ * Logins, withdrawals, deposits and transfers update LongAdder counters and
+ * lock-free latency histograms, and emit an AtmOperationEvent for JFR.
+ * Latency covers the work done for an operation, not the time a customer
+ * spends typing. The text report is served over HTTP when the system
+ * property atm.metrics.port is set, e.g. curl localhost:9091/metrics, and
+ * written to metrics.txt in the data directory every atm.metrics.dumpSeconds.
+ */
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class AtmMetrics {
+    public enum Operation {
+        LOGIN("Login"),
+        WITHDRAWAL("Withdrawal"),
+        DEPOSIT("Deposit"),
+        TRANSFER("Transfer");
+        
+        private final String label;
+        
+        Operation(String label) {
+            this.label = label;
+        }
+    }
+    
+    private static final String PORT_PROPERTY = "atm.metrics.port";
+    private static final String DUMP_PROPERTY = "atm.metrics.dumpSeconds";
+    private static final String DUMP_FILE = "metrics.txt";
+    
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final LongAdder[] ATTEMPTS = newAdders();
+    private static final LongAdder[] SUCCESSES = newAdders();
+    private static final LongAdder[] AMOUNTS = newAdders();
+    private static final LatencyHistogram[] LATENCIES = new LatencyHistogram[OPERATIONS.length];
+    private static final LongAdder FAILED_PINS = new LongAdder();
+    private static final LongAdder LOCKED_OUT_LOGINS = new LongAdder();
+    
+    private static HttpServer httpServer;
+    private static ScheduledExecutorService dumpScheduler;
+    
+    static {
+        for (int i = 0; i < LATENCIES.length; i++) {
+            LATENCIES[i] = new LatencyHistogram();
+        }
+    }
+    
+    private AtmMetrics() {
+    }
+    
+    // Call right before the work being measured
+    public static AtmOperationEvent begin() {
+        AtmOperationEvent event = new AtmOperationEvent();
+        event.begin();
+        event.startNanos = System.nanoTime();
+        return event;
+    }
+    
+    public static void recordLogin(AtmOperationEvent event, String accountNumber, LoginResult result) {
+        if (result == LoginResult.INVALID_CREDENTIALS) {
+            FAILED_PINS.increment();
+        } else if (result == LoginResult.LOCKED_OUT) {
+            LOCKED_OUT_LOGINS.increment();
+        }
+        finish(event, Operation.LOGIN, accountNumber, 0, result == LoginResult.SUCCESS, result.name());
+    }
+    
+    public static void recordLedger(AtmOperationEvent event, Operation operation, String accountNumber,
+                                    long amount, LedgerResult result) {
+        finish(event, operation, accountNumber, amount, result == LedgerResult.SUCCESS, result.name());
+    }
+    
+    public static String render() {
+        StringBuilder text = new StringBuilder(1024);
+        text.append("# ATM metrics at ").append(LocalDateTime.now().withNano(0)).append('\n');
+        text.append(String.format("%-11s %9s %9s %9s %16s %10s %10s %10s %10s %10s%n",
+                                  "operation", "attempts", "success", "rejected", "amount_rs",
+                                  "mean_us", "p50_us", "p99_us", "p99.9_us", "max_us"));
+        for (Operation operation : OPERATIONS) {
+            int i = operation.ordinal();
+            long attempted = ATTEMPTS[i].sum();
+            long succeeded = SUCCESSES[i].sum();
+            LatencyHistogram histogram = LATENCIES[i];
+            text.append(String.format("%-11s %9d %9d %9d %16s %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                                      operation.label, attempted, succeeded, attempted - succeeded,
+                                      operation == Operation.LOGIN ? "-" : Money.format(AMOUNTS[i].sum()),
+                                      micros(histogram.getMeanNanos()),
+                                      micros(histogram.getPercentileNanos(50)),
+                                      micros(histogram.getPercentileNanos(99)),
+                                      micros(histogram.getPercentileNanos(99.9)),
+                                      micros(histogram.getMaxNanos())));
+        }
+        text.append("failed_pin_attempts ").append(FAILED_PINS.sum()).append('\n');
+        text.append("locked_out_logins ").append(LOCKED_OUT_LOGINS.sum()).append('\n');
+        return text.toString();
+    }
+    
+    // Starts whichever of the HTTP endpoint and periodic dump the system properties ask for
+    public static void startReporting(Path dataDirectory) {
+        Integer port = Integer.getInteger(PORT_PROPERTY);
+        if (port != null) {
+            try {
+                httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+                httpServer.createContext("/metrics", exchange -> {
+                    byte[] body = render().getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                });
+                httpServer.start();
+                System.out.println("Metrics available at http://localhost:" + port + "/metrics");
+            } catch (IOException e) {
+                System.out.println("Warning: could not start metrics endpoint: " + e.getMessage());
+            }
+        }
+        
+        Integer dumpSeconds = Integer.getInteger(DUMP_PROPERTY);
+        if (dumpSeconds != null && dumpSeconds > 0) {
+            Path file = dataDirectory.resolve(DUMP_FILE);
+            dumpScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+            dumpScheduler.scheduleAtFixedRate(() -> dump(file), dumpSeconds, dumpSeconds, TimeUnit.SECONDS);
+        }
+    }
+    
+    public static void stopReporting() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+        if (dumpScheduler != null) {
+            dumpScheduler.shutdownNow();
+        }
+    }
+    
+    private static void finish(AtmOperationEvent event, Operation operation, String accountNumber,
+                               long amount, boolean success, String result) {
+        long elapsed = System.nanoTime() - event.startNanos;
+        int i = operation.ordinal();
+        ATTEMPTS[i].increment();
+        LATENCIES[i].record(elapsed);
+        if (success) {
+            SUCCESSES[i].increment();
+            AMOUNTS[i].add(amount);
+        }
+        
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation.label;
+            event.accountNumber = accountNumber;
+            event.amount = amount;
+            event.result = result;
+            event.commit();
+        }
+    }
+    
+    private static void dump(Path file) {
+        try {
+            Path temp = file.resolveSibling(DUMP_FILE + ".tmp");
+            Files.write(temp, render().getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Metrics are best effort; the next dump will try again
+        }
+    }
+    
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+    
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[Operation.values().length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
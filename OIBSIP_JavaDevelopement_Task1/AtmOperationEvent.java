@@ -0,0 +1,34 @@
+/**
+ * JFR event for one login or ledger operation.
+ * Record with e.g. java -XX:StartFlightRecording:filename=atm.jfr ATMInterface
+ * and open the recording in JDK Mission Control under the ATM category.
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("atm.Operation")
+@Label("ATM Operation")
+@Category("ATM")
+@Description("A login, withdrawal, deposit or transfer handled by the ATM")
+@StackTrace(false)
+public class AtmOperationEvent extends Event {
+    @Label("Operation")
+    String operation;
+    
+    @Label("Account")
+    String accountNumber;
+    
+    @Label("Amount (paise)")
+    long amount;
+    
+    @Label("Result")
+    String result;
+    
+    // Used for the in-process latency histograms; JFR skips transient fields
+    transient long startNanos;
+}
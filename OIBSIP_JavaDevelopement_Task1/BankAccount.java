@@ -1,51 +1,118 @@
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 public class BankAccount {
     private String accountNumber;
-    private String pinCode;
+    private PinCredential pinCredential;
     private String accountHolderName;
-    private double accountBalance;
-    private List<TransactionRecord> transactionHistory;
+    private final AtomicLong accountBalance;
+    private HistoryStore transactionHistory;
+    private final SpendingLimits spendingLimits = new SpendingLimits();
     
-    public BankAccount(String accountNumber, String pinCode, String accountHolderName, double initialBalance) {
+    // Balances are whole paise, see Money
+    public BankAccount(String accountNumber, PinCredential pinCredential, String accountHolderName,
+                       long initialBalance) {
+        this(accountNumber, pinCredential, accountHolderName, initialBalance, HistoryStore.inMemory());
+    }
+    
+    public BankAccount(String accountNumber, PinCredential pinCredential, String accountHolderName,
+                       long initialBalance, HistoryStore transactionHistory) {
         this.accountNumber = accountNumber;
-        this.pinCode = pinCode;
+        this.pinCredential = pinCredential;
         this.accountHolderName = accountHolderName;
-        this.accountBalance = initialBalance;
-        this.transactionHistory = new ArrayList<>();
+        this.accountBalance = new AtomicLong(initialBalance);
+        this.transactionHistory = transactionHistory;
     }
     
     public String getAccountNumber() {
         return accountNumber;
     }
     
-    public String getPinCode() {
-        return pinCode;
+    public PinCredential getPinCredential() {
+        return pinCredential;
     }
     
     public String getAccountHolderName() {
         return accountHolderName;
     }
     
-    public double getAccountBalance() {
-        return accountBalance;
+    public long getAccountBalance() {
+        return accountBalance.get();
+    }
+    
+    // Guarded by the account's LedgerService stripe
+    public SpendingLimits getSpendingLimits() {
+        return spendingLimits;
+    }
+    
+    public int getTransactionCount() {
+        return transactionHistory.size();
+    }
+    
+    // Newest first; page 0 is the most recent pageSize transactions
+    public List<TransactionRecord> getTransactionPage(int pageIndex, int pageSize) {
+        return transactionHistory.getPage(pageIndex, pageSize);
+    }
+    
+    // Oldest first, limited to [fromMillis, toMillis]; records are streamed, not collected
+    public int scanTransactions(long fromMillis, long toMillis, Consumer<TransactionRecord> visitor) {
+        return transactionHistory.scan(fromMillis, toMillis, visitor);
+    }
+    
+    public long getLastRecordedSequence() {
+        return transactionHistory.getLastSequence();
+    }
+    
+    public void forceActivity() {
+        transactionHistory.force();
+    }
+    
+    public void discardActivityAfter(long sequence) {
+        transactionHistory.discardAfter(sequence);
+    }
+    
+    public boolean deductAmount(long amount) {
+        if (!debit(amount)) {
+            return false;
+        }
+        recordActivity(TransactionType.WITHDRAWAL, -amount);
+        return true;
+    }
+    
+    public void addAmount(long amount) {
+        credit(amount);
+        recordActivity(TransactionType.DEPOSIT, amount);
     }
     
-    public List<TransactionRecord> getTransactionHistory() {
-        return transactionHistory;
+    // Debits only if the balance covers the amount; a single CAS, no lock needed
+    public boolean debit(long amount) {
+        long current;
+        do {
+            current = accountBalance.get();
+            if (current < amount) {
+                return false;
+            }
+        } while (!accountBalance.compareAndSet(current, current - amount));
+        return true;
     }
     
-    public void deductAmount(double amount) {
-        this.accountBalance -= amount;
-        recordActivity("Withdrawal", -amount, "Cash withdrawn");
+    public void credit(long amount) {
+        accountBalance.addAndGet(amount);
     }
     
-    public void addAmount(double amount) {
-        this.accountBalance += amount;
-        recordActivity("Deposit", amount, "Cash deposited");
+    public void recordActivity(TransactionType type, long amount) {
+        recordActivity(type, amount, null, System.currentTimeMillis(), 0);
     }
     
-    public void recordActivity(String type, double amount, String details) {
-        transactionHistory.add(new TransactionRecord(type, amount, details));
+    // sequence is the journal entry behind this activity, or 0 for session events
+    public void recordActivity(TransactionType type, long amount, BankAccount counterparty,
+                               long timestamp, long sequence) {
+        if (counterparty == null) {
+            transactionHistory.append(type, amount, null, null, timestamp, sequence);
+        } else {
+            transactionHistory.append(type, amount, counterparty.getAccountNumber(),
+                                      counterparty.getAccountHolderName(), timestamp, sequence);
+        }
     }
 }
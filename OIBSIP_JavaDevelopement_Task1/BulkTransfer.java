@@ -0,0 +1,119 @@
+/**
+ * File-driven bulk transfer for payroll-style payouts.
+ * Usage: java ATMInterface --bulk-transfer <source account> <file>
+ * Each non-blank line of the file is "recipient account,amount"; lines
+ * starting with # are ignored. The whole file settles as one atomic batch.
+ */
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+public class BulkTransfer {
+    public static void run(LedgerService ledger, String sourceAccountNumber, Path file) {
+        System.out.println("\n" + repeatChar('=', 55));
+        System.out.println("BULK TRANSFER");
+        System.out.println("Source Account: " + sourceAccountNumber);
+        System.out.println("Instructions: " + file);
+        System.out.println(repeatChar('=', 55));
+        
+        BankAccount source = ledger.findAccount(sourceAccountNumber);
+        if (source == null) {
+            System.out.println("Source account not found!");
+            return;
+        }
+        
+        List<TransferLeg> legs;
+        try {
+            legs = readLegs(file);
+        } catch (IOException e) {
+            System.out.println("Could not read transfer file: " + e.getMessage());
+            return;
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        
+        if (legs.isEmpty()) {
+            System.out.println("No transfers found in file.");
+            return;
+        }
+        
+        long startTime = System.nanoTime();
+        TransferBatchResult result = ledger.transferBatch(source, legs);
+        long elapsedNanos = System.nanoTime() - startTime;
+        
+        if (!result.isSuccessful()) {
+            System.out.println("Bulk transfer rejected: " + describe(result.getResult()));
+            if (result.getFailedLeg() >= 0) {
+                TransferLeg leg = legs.get(result.getFailedLeg());
+                System.out.println("Failed at entry " + (result.getFailedLeg() + 1) + ": " +
+                                 leg.getRecipientAccountNumber() + ", Rs. " + Money.format(leg.getAmount()));
+            }
+            System.out.println("No transfers were made.");
+            return;
+        }
+        
+        double elapsedMillis = elapsedNanos / 1_000_000.0;
+        System.out.println("Bulk transfer successful!");
+        System.out.println("Transfers settled: " + result.getLegCount());
+        System.out.println("Total amount: Rs. " + Money.format(result.getTotalAmount()));
+        System.out.println("Remaining balance: Rs. " + Money.format(source.getAccountBalance()));
+        System.out.printf("Settlement time: %.3f ms (%.0f transfers/sec)%n",
+                          elapsedMillis, result.getLegCount() / (elapsedNanos / 1_000_000_000.0));
+        System.out.println(repeatChar('=', 55));
+    }
+    
+    private static List<TransferLeg> readLegs(Path file) throws IOException {
+        List<TransferLeg> legs = new ArrayList<>();
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                
+                int comma = line.indexOf(',');
+                if (comma < 0) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": expected \"account,amount\"");
+                }
+                try {
+                    legs.add(new TransferLeg(line.substring(0, comma).trim(),
+                                             Money.parse(line.substring(comma + 1))));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": invalid amount");
+                }
+            }
+        }
+        return legs;
+    }
+    
+    private static String describe(LedgerResult result) {
+        switch (result) {
+            case INVALID_AMOUNT:
+                return "amount must be greater than zero";
+            case INSUFFICIENT_BALANCE:
+                return "insufficient balance for the batch total";
+            case LIMIT_EXCEEDED:
+                return "maximum transfer per transaction is Rs. 25,000";
+            case DAILY_LIMIT_EXCEEDED:
+                return "batch total exceeds the daily transfer limit of Rs. 1,00,000";
+            case MONTHLY_LIMIT_EXCEEDED:
+                return "batch total exceeds the 30-day outflow limit of Rs. 5,00,000";
+            case SAME_ACCOUNT:
+                return "cannot transfer to the same account";
+            case ACCOUNT_NOT_FOUND:
+                return "recipient account not found";
+            default:
+                return result.toString();
+        }
+    }
+    
+    private static String repeatChar(char ch, int count) {
+        return ConsoleRenderer.rule(ch, count);
+    }
+}
@@ -0,0 +1,294 @@
+/**
+ * Fixed-width binary transaction history for one account.
+ * Records are appended to a memory-mapped file and read back one page at a
+ * time, newest first, so the heap cost of an account does not grow with the
+ * length of its history. Accounts without a data directory use the same
+ * layout in a small heap buffer.
+ * Mapped records reach the disk when the OS writes them back, or when the
+ * ledger forces every history before it writes a snapshot. They survive a
+ * process crash either way. After a power loss, records for entries since
+ * the last snapshot can be missing, and they are not rebuilt from the
+ * journal, since its replay trusts the recorded sequence in the header.
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+public class HistoryStore {
+    private static final int FORMAT_MAGIC = 0x41544D48; // "ATMH"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 64;
+    private static final int COUNT_OFFSET = 8;
+    private static final int SEQUENCE_OFFSET = 16;
+    
+    // Record layout: timestamp, amount, journal sequence, type code, counterparty account and name
+    private static final int RECORD_BYTES = 128;
+    private static final int TYPE_OFFSET = 24;
+    private static final int COUNTERPARTY_OFFSET = 25;
+    private static final int COUNTERPARTY_BYTES = 20;
+    private static final int NAME_OFFSET = 46;
+    private static final int NAME_BYTES = 81;
+    
+    private static final int MAPPED_INITIAL_RECORDS = 256;
+    private static final int HEAP_INITIAL_RECORDS = 8;
+    // Records are appended in time order, give or take concurrent sessions on one account
+    private static final long ORDER_SLACK_MILLIS = 60 * 1000;
+    
+    private final Path file; // null when held on the heap
+    private ByteBuffer buffer;
+    private int capacity;
+    private int count;
+    private long lastSequence;
+    
+    private HistoryStore(Path file, ByteBuffer buffer, int capacity) {
+        this.file = file;
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+    
+    public static HistoryStore inMemory() {
+        return new HistoryStore(null, null, 0);
+    }
+    
+    public static HistoryStore open(Path file) throws IOException {
+        int count = 0;
+        long lastSequence = 0;
+        if (Files.exists(file) && Files.size(file) >= HEADER_BYTES) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                channel.read(header, 0);
+                if (header.getInt(0) != FORMAT_MAGIC) {
+                    throw new IOException("Not a transaction history file: " + file);
+                }
+                if (header.getInt(4) != FORMAT_VERSION) {
+                    throw new IOException("Unsupported history format version " + header.getInt(4) + ": " + file);
+                }
+                count = (int) header.getLong(COUNT_OFFSET);
+                lastSequence = header.getLong(SEQUENCE_OFFSET);
+            }
+        }
+        
+        int capacity = Math.max(MAPPED_INITIAL_RECORDS, Integer.highestOneBit(Math.max(count, 1)) * 2);
+        HistoryStore store = new HistoryStore(file, map(file, capacity), capacity);
+        store.count = count;
+        store.lastSequence = lastSequence;
+        store.writeHeader();
+        return store;
+    }
+    
+    public synchronized int size() {
+        return count;
+    }
+    
+    // Highest journal sequence already recorded; replay skips entries at or below it
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+    
+    public synchronized void append(TransactionType type, long amount, String counterpartyAccountNumber,
+                                    String counterpartyName, long timestamp, long sequence) {
+        ensureCapacity(count + 1);
+        
+        int base = HEADER_BYTES + count * RECORD_BYTES;
+        buffer.putLong(base, timestamp);
+        buffer.putLong(base + 8, amount);
+        buffer.putLong(base + 16, sequence);
+        buffer.put(base + TYPE_OFFSET, type.getCode());
+        putText(base + COUNTERPARTY_OFFSET, COUNTERPARTY_BYTES, counterpartyAccountNumber);
+        putText(base + NAME_OFFSET, NAME_BYTES, counterpartyName);
+        
+        // Publish the record only after its bytes are in place
+        count++;
+        if (sequence > lastSequence) {
+            lastSequence = sequence;
+        }
+        writeHeader();
+    }
+    
+    // Drops records for journal entries after the given sequence; history is written before its journal
+    // entry is durable, so after a crash it can be ahead of what the journal replays. Session events
+    // (sequence 0) among them are kept.
+    public synchronized void discardAfter(long sequence) {
+        if (lastSequence <= sequence) {
+            return;
+        }
+        int start = count;
+        long kept = 0;
+        while (start > 0) {
+            long recorded = buffer.getLong(HEADER_BYTES + (start - 1) * RECORD_BYTES + 16);
+            if (recorded != 0 && recorded <= sequence) {
+                kept = recorded;
+                break;
+            }
+            start--;
+        }
+        
+        int end = start;
+        for (int i = start; i < count; i++) {
+            int base = HEADER_BYTES + i * RECORD_BYTES;
+            if (buffer.getLong(base + 16) == 0) {
+                if (i != end) {
+                    buffer.put(HEADER_BYTES + end * RECORD_BYTES, buffer.duplicate(), base, RECORD_BYTES);
+                }
+                end++;
+            }
+        }
+        count = end;
+        lastSequence = kept;
+        writeHeader();
+    }
+    
+    // Writes mapped records out to the disk; heap stores have nothing to force
+    public void force() {
+        ByteBuffer mapped;
+        synchronized (this) {
+            mapped = buffer;
+        }
+        if (file != null && mapped != null) {
+            ((MappedByteBuffer) mapped).force();
+        }
+    }
+    
+    // Page 0 holds the newest pageSize records, page 1 the ones before them, and so on
+    public synchronized List<TransactionRecord> getPage(int pageIndex, int pageSize) {
+        int newest = count - 1 - pageIndex * pageSize;
+        int oldest = Math.max(0, newest - pageSize + 1);
+        List<TransactionRecord> page = new ArrayList<>(Math.max(0, newest - oldest + 1));
+        
+        for (int i = newest; i >= oldest; i--) {
+            page.add(readRecord(buffer, HEADER_BYTES + i * RECORD_BYTES));
+        }
+        return page;
+    }
+    
+    // Visits records with fromMillis <= timestamp <= toMillis, oldest first, and returns how many.
+    // Only the record count is read under the lock, so a long export never holds up new transactions.
+    public int scan(long fromMillis, long toMillis, Consumer<TransactionRecord> visitor) {
+        ByteBuffer view;
+        int end;
+        synchronized (this) {
+            if (buffer == null) {
+                return 0;
+            }
+            // Records below count are never rewritten, and a remap leaves the old mapping readable
+            view = buffer.duplicate();
+            end = count;
+        }
+        
+        int visited = 0;
+        for (int i = firstAtOrAfter(view, end, fromMillis - ORDER_SLACK_MILLIS); i < end; i++) {
+            int base = HEADER_BYTES + i * RECORD_BYTES;
+            long timestamp = view.getLong(base);
+            if (timestamp > toMillis + ORDER_SLACK_MILLIS) {
+                break;
+            }
+            if (timestamp >= fromMillis && timestamp <= toMillis) {
+                visitor.accept(readRecord(view, base));
+                visited++;
+            }
+        }
+        return visited;
+    }
+    
+    // Binary search over the time-ordered records
+    private static int firstAtOrAfter(ByteBuffer view, int end, long timestamp) {
+        int low = 0;
+        int high = end;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (view.getLong(HEADER_BYTES + mid * RECORD_BYTES) < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private static TransactionRecord readRecord(ByteBuffer source, int base) {
+        TransactionType type = TransactionType.fromCode(source.get(base + TYPE_OFFSET));
+        if (type.hasCounterparty()) {
+            return new TransactionRecord(type, source.getLong(base + 8), source.getLong(base),
+                getText(source, base + COUNTERPARTY_OFFSET), getText(source, base + NAME_OFFSET));
+        }
+        return new TransactionRecord(type, source.getLong(base + 8), source.getLong(base));
+    }
+    
+    private void ensureCapacity(int records) {
+        if (records <= capacity) {
+            return;
+        }
+        
+        int newCapacity = Math.max(capacity * 2, file == null ? HEAP_INITIAL_RECORDS : MAPPED_INITIAL_RECORDS);
+        while (newCapacity < records) {
+            newCapacity *= 2;
+        }
+        
+        if (file == null) {
+            ByteBuffer larger = ByteBuffer.allocate(HEADER_BYTES + newCapacity * RECORD_BYTES);
+            if (buffer != null) {
+                buffer.clear();
+                larger.put(buffer);
+            }
+            buffer = larger;
+        } else {
+            try {
+                buffer = map(file, newCapacity);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not grow history file " + file, e);
+            }
+        }
+        capacity = newCapacity;
+    }
+    
+    private void writeHeader() {
+        if (buffer == null) {
+            return;
+        }
+        buffer.putInt(0, FORMAT_MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putLong(COUNT_OFFSET, count);
+        buffer.putLong(SEQUENCE_OFFSET, lastSequence);
+    }
+    
+    // Length-prefixed UTF-8, cut on a character boundary if it does not fit
+    private void putText(int offset, int maxBytes, String text) {
+        if (text == null) {
+            buffer.put(offset, (byte) 0);
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, maxBytes);
+        while (length < bytes.length && length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        buffer.put(offset, (byte) length);
+        for (int i = 0; i < length; i++) {
+            buffer.put(offset + 1 + i, bytes[i]);
+        }
+    }
+    
+    private static String getText(ByteBuffer source, int offset) {
+        int length = source.get(offset) & 0xFF;
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = source.get(offset + 1 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static ByteBuffer map(Path file, int capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * RECORD_BYTES);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+public class JournalEntry {
+    private byte entryType;
+    private long sequence;
+    private long timestamp;
+    private String accountNumber;
+    private String counterpartyAccountNumber;
+    private long amount;
+    private String pinCode;
+    private String accountHolderName;
+    private String[] legAccountNumbers;
+    private long[] legAmounts;
+    
+    public JournalEntry(byte entryType, long sequence, long timestamp, String accountNumber,
+                       String counterpartyAccountNumber, long amount, String pinCode, String accountHolderName) {
+        this.entryType = entryType;
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.accountNumber = accountNumber;
+        this.counterpartyAccountNumber = counterpartyAccountNumber;
+        this.amount = amount;
+        this.pinCode = pinCode;
+        this.accountHolderName = accountHolderName;
+    }
+    
+    public byte getEntryType() {
+        return entryType;
+    }
+    
+    public long getSequence() {
+        return sequence;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+    
+    public String getCounterpartyAccountNumber() {
+        return counterpartyAccountNumber;
+    }
+    
+    public long getAmount() {
+        return amount;
+    }
+    
+    public String getPinCode() {
+        return pinCode;
+    }
+    
+    public String getAccountHolderName() {
+        return accountHolderName;
+    }
+    
+    // Recipients and amounts of a TRANSFER_BATCH entry
+    public void setLegs(String[] legAccountNumbers, long[] legAmounts) {
+        this.legAccountNumbers = legAccountNumbers;
+        this.legAmounts = legAmounts;
+    }
+    
+    public String[] getLegAccountNumbers() {
+        return legAccountNumbers;
+    }
+    
+    public long[] getLegAmounts() {
+        return legAmounts;
+    }
+}
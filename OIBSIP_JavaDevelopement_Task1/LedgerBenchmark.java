@@ -0,0 +1,243 @@
+/**
+ * Micro-benchmarks for the ledger hot paths.
+ * Usage: java LedgerBenchmark [threads] [name filter]
+ * Every case runs once single-threaded and once with all threads hitting
+ * the same accounts. Each run does warmup iterations first, then reports
+ * the mean time per operation over the measured iterations, along with the
+ * best and worst iteration. Mutable state is rebuilt before every iteration;
+ * that setup is not timed.
+ */
+
+import java.util.*;
+import java.util.concurrent.CyclicBarrier;
+
+public class LedgerBenchmark {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 10;
+    // Small enough that the history a contended iteration appends stays well inside the heap
+    private static final int OPS_PER_THREAD = 20000;
+    private static final int HISTORY_RECORDS = 1000;
+    
+    // Results are folded in here so the JIT cannot drop the work being measured
+    private static volatile long sink;
+    
+    private abstract static class Case {
+        final String name;
+        
+        Case(String name) {
+            this.name = name;
+        }
+        
+        // Untimed; called before every iteration
+        abstract void setUp(int threads);
+        
+        abstract long invoke(int iteration, StringBuilder scratch);
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0])
+                                      : Math.max(2, Runtime.getRuntime().availableProcessors());
+        String filter = args.length > 1 ? args[1] : "";
+        
+        System.out.println(repeatChar('=', 78));
+        System.out.println("LEDGER BENCHMARK");
+        System.out.println("Warmup: " + WARMUP_ITERATIONS + " x " + OPS_PER_THREAD + " ops, Measured: " +
+                           MEASURED_ITERATIONS + " x " + OPS_PER_THREAD + " ops per thread");
+        System.out.println(repeatChar('=', 78));
+        System.out.printf("%-28s %7s %12s %12s %12s%n", "Benchmark", "Threads", "ns/op", "min-max", "ops/sec");
+        System.out.println(repeatChar('-', 78));
+        
+        for (Case benchmark : createCases()) {
+            if (!benchmark.name.contains(filter)) {
+                continue;
+            }
+            run(benchmark, 1);
+            run(benchmark, threads);
+        }
+        System.out.println(repeatChar('=', 78));
+    }
+    
+    private static List<Case> createCases() {
+        List<Case> cases = new ArrayList<>();
+        
+        cases.add(new Case("BankAccount.deductAmount") {
+            BankAccount account;
+            
+            void setUp(int threads) {
+                account = new BankAccount("10001", null, "Bench", Money.ofRupees(1000000000L));
+            }
+            
+            long invoke(int iteration, StringBuilder scratch) {
+                return account.deductAmount(100) ? 1 : 0;
+            }
+        });
+        
+        cases.add(new Case("BankAccount.addAmount") {
+            BankAccount account;
+            
+            void setUp(int threads) {
+                account = new BankAccount("10001", null, "Bench", 0);
+            }
+            
+            long invoke(int iteration, StringBuilder scratch) {
+                account.addAmount(100);
+                return iteration;
+            }
+        });
+        
+        cases.add(new Case("BankAccount.recordActivity") {
+            BankAccount account;
+            
+            void setUp(int threads) {
+                account = new BankAccount("10001", null, "Bench", 0);
+            }
+            
+            long invoke(int iteration, StringBuilder scratch) {
+                account.recordActivity(TransactionType.LOGIN, 0);
+                return iteration;
+            }
+        });
+        
+        cases.add(new Case("LedgerService.transfer") {
+            LedgerService ledger;
+            BankAccount first;
+            BankAccount second;
+            
+            // In-memory ledger, so this measures locking and bookkeeping rather than fsync
+            void setUp(int threads) {
+                ledger = new LedgerService();
+                first = ledger.openAccount("10001", "0000", "Bench One", Money.ofRupees(1000000));
+                second = ledger.openAccount("10002", "0000", "Bench Two", Money.ofRupees(1000000));
+            }
+            
+            // One paisa each way keeps every iteration far below the daily transfer cap
+            long invoke(int iteration, StringBuilder scratch) {
+                LedgerResult result = (iteration & 1) == 0 ? ledger.transfer(first, second, 1)
+                                                           : ledger.transfer(second, first, 1);
+                if (result != LedgerResult.SUCCESS) {
+                    throw new IllegalStateException("Transfer failed: " + result);
+                }
+                return iteration;
+            }
+        });
+        
+        cases.add(new Case("ATMInterface.historyPage") {
+            BankAccount account;
+            
+            void setUp(int threads) {
+                if (account != null) {
+                    return;
+                }
+                account = new BankAccount("10001", null, "Bench", 0);
+                BankAccount counterparty = new BankAccount("10002", null, "Bench Counterparty", 0);
+                long now = System.currentTimeMillis();
+                for (int i = 0; i < HISTORY_RECORDS; i++) {
+                    if (i % 3 == 0) {
+                        account.recordActivity(TransactionType.TRANSFER_OUT, -12550, counterparty, now + i, i + 1);
+                    } else {
+                        account.recordActivity(TransactionType.DEPOSIT, 250000, null, now + i, i + 1);
+                    }
+                }
+            }
+            
+            // Loads one page of ten and renders it the way viewTransactionHistory does
+            long invoke(int iteration, StringBuilder scratch) {
+                long length = 0;
+                for (TransactionRecord record : account.getTransactionPage(iteration % (HISTORY_RECORDS / 10), 10)) {
+                    scratch.setLength(0);
+                    ATMInterface.appendHistoryRow(scratch, record);
+                    length += scratch.length();
+                }
+                return length;
+            }
+        });
+        
+        cases.add(new Case("ATMInterface.formatAmount") {
+            long[] amounts = new long[1024];
+            
+            void setUp(int threads) {
+                Random random = new Random(42);
+                for (int i = 0; i < amounts.length; i++) {
+                    amounts[i] = random.nextInt(10000000);
+                }
+            }
+            
+            long invoke(int iteration, StringBuilder scratch) {
+                return ATMInterface.formatAmount(amounts[iteration & 1023]).length();
+            }
+        });
+        
+        return cases;
+    }
+    
+    private static void run(Case benchmark, int threads) throws Exception {
+        double[] nanosPerOp = new double[MEASURED_ITERATIONS];
+        for (int i = 0; i < WARMUP_ITERATIONS + MEASURED_ITERATIONS; i++) {
+            benchmark.setUp(threads);
+            long elapsed = runIteration(benchmark, threads);
+            if (i >= WARMUP_ITERATIONS) {
+                // Wall time per operation as seen by one thread
+                nanosPerOp[i - WARMUP_ITERATIONS] = (double) elapsed / OPS_PER_THREAD;
+            }
+        }
+        
+        double sum = 0;
+        double min = Double.MAX_VALUE;
+        double max = 0;
+        for (double value : nanosPerOp) {
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        double mean = sum / nanosPerOp.length;
+        System.out.printf("%-28s %7d %12.1f %12s %12.0f%n", benchmark.name, threads, mean,
+                          String.format("%.0f-%.0f", min, max), threads * 1_000_000_000.0 / mean);
+    }
+    
+    // Returns the nanos from the first thread starting to the last thread finishing
+    private static long runIteration(Case benchmark, int threads) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(threads);
+        long[] startTimes = new long[threads];
+        long[] endTimes = new long[threads];
+        Throwable[] failure = new Throwable[1];
+        Thread[] workers = new Thread[threads];
+        
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            workers[t] = new Thread(() -> {
+                StringBuilder scratch = new StringBuilder(96);
+                long local = 0;
+                try {
+                    start.await();
+                    // Each worker times itself; the main thread may not even be scheduled meanwhile
+                    startTimes[index] = System.nanoTime();
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        local += benchmark.invoke(i, scratch);
+                    }
+                    endTimes[index] = System.nanoTime();
+                    sink += local;
+                } catch (Exception e) {
+                    failure[0] = e;
+                }
+            }, "bench-" + t);
+            workers[t].start();
+        }
+        
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (int t = 0; t < threads; t++) {
+            workers[t].join();
+            first = Math.min(first, startTimes[t]);
+            last = Math.max(last, endTimes[t]);
+        }
+        
+        if (failure[0] != null) {
+            throw new IllegalStateException(benchmark.name + " failed", failure[0]);
+        }
+        return last - first;
+    }
+    
+    private static String repeatChar(char ch, int count) {
+        return ConsoleRenderer.rule(ch, count);
+    }
+}
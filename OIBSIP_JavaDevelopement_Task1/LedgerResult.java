@@ -0,0 +1,10 @@
+public enum LedgerResult {
+    SUCCESS,
+    INVALID_AMOUNT,
+    INSUFFICIENT_BALANCE,
+    LIMIT_EXCEEDED,
+    DAILY_LIMIT_EXCEEDED,
+    MONTHLY_LIMIT_EXCEEDED,
+    SAME_ACCOUNT,
+    ACCOUNT_NOT_FOUND
+}
@@ -0,0 +1,491 @@
+/**
+ * Thread-safe ledger behind the ATM withdraw, deposit and transfer flows.
+ * Every account hashes onto one of a fixed set of striped locks; a transfer
+ * takes both stripes in ascending index order so opposing transfers can
+ * never deadlock.
+ *
+ * When opened on a data directory, every change is appended to a
+ * TransactionJournal while the stripe is held and acknowledged only once
+ * the journal reports it durable. Snapshots are written every
+ * SNAPSHOT_INTERVAL entries so recovery only replays the recent tail.
+ * Each account's history lives in its own memory-mapped HistoryStore.
+ * Batch transfers lock every stripe they touch in ascending order and are
+ * journaled as a single entry, so a crash never leaves half a batch applied.
+ */
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class LedgerService implements Closeable {
+    public static final long WITHDRAWAL_LIMIT = Money.ofRupees(50000);
+    public static final long DEPOSIT_LIMIT = Money.ofRupees(100000);
+    public static final long TRANSFER_LIMIT = Money.ofRupees(25000);
+    
+    private static final int STRIPE_COUNT = 64;
+    private static final long SNAPSHOT_INTERVAL = 10000;
+    private static final String JOURNAL_FILE = "ledger.journal";
+    private static final String SNAPSHOT_FILE = "ledger.snapshot";
+    private static final String HISTORY_DIRECTORY = "history";
+    
+    private final Map<String, BankAccount> accounts = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPE_COUNT];
+    private final AtomicBoolean snapshotInProgress = new AtomicBoolean();
+    private Path dataDirectory;
+    private TransactionJournal journal; // null for a purely in-memory ledger
+    
+    public LedgerService() {
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+    
+    // Loads the latest snapshot, replays the journal tail after it and starts journaling
+    public static LedgerService open(Path dataDirectory) throws IOException {
+        Files.createDirectories(dataDirectory.resolve(HISTORY_DIRECTORY));
+        LedgerService ledger = new LedgerService();
+        ledger.dataDirectory = dataDirectory;
+        
+        long journalOffset = 0;
+        long lastSequence = 0;
+        LedgerSnapshot snapshot = LedgerSnapshot.readFrom(dataDirectory.resolve(SNAPSHOT_FILE));
+        if (snapshot != null) {
+            for (BankAccount saved : snapshot.getAccounts()) {
+                BankAccount account = ledger.newAccount(saved.getAccountNumber(), saved.getPinCredential(),
+                                                        saved.getAccountHolderName(), saved.getAccountBalance());
+                account.getSpendingLimits().copyFrom(saved.getSpendingLimits());
+                ledger.accounts.put(saved.getAccountNumber(), account);
+            }
+            journalOffset = snapshot.getJournalOffset();
+            lastSequence = snapshot.getLastSequence();
+        }
+        
+        ledger.journal = TransactionJournal.open(dataDirectory.resolve(JOURNAL_FILE),
+                                                 journalOffset, lastSequence, ledger::applyEntry);
+        // History written for entries the journal lost in the crash describes changes that never happened
+        for (BankAccount account : ledger.accounts.values()) {
+            account.discardActivityAfter(ledger.journal.getLastSequence());
+        }
+        return ledger;
+    }
+    
+    // Returns the existing account unchanged if the number is already taken
+    public BankAccount openAccount(String accountNumber, String pinCode, String holderName, long initialBalance) {
+        // Hash before taking the stripe; PBKDF2 is deliberately slow
+        PinCredential pinCredential = PinCredential.create(pinCode);
+        long sequence;
+        BankAccount account;
+        ReentrantLock lock = stripes[stripeIndex(accountNumber)];
+        lock.lock();
+        try {
+            BankAccount existing = accounts.get(accountNumber);
+            if (existing != null) {
+                return existing;
+            }
+            // Journaled first: the account only appears once the journal has taken it
+            sequence = log(TransactionJournal.OPEN_ACCOUNT, System.currentTimeMillis(),
+                           accountNumber, null, initialBalance, pinCredential.encode(), holderName);
+            account = newAccount(accountNumber, pinCredential, holderName, initialBalance);
+            accounts.put(accountNumber, account);
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(sequence);
+        return account;
+    }
+    
+    public BankAccount findAccount(String accountNumber) {
+        return accounts.get(accountNumber);
+    }
+    
+    public Collection<BankAccount> getAccounts() {
+        return Collections.unmodifiableCollection(accounts.values());
+    }
+    
+    public LedgerResult withdraw(BankAccount account, long amount) {
+        if (amount <= 0) {
+            return LedgerResult.INVALID_AMOUNT;
+        }
+        
+        long sequence;
+        ReentrantLock lock = stripeFor(account);
+        lock.lock();
+        try {
+            if (amount > account.getAccountBalance()) {
+                return LedgerResult.INSUFFICIENT_BALANCE;
+            }
+            if (amount > WITHDRAWAL_LIMIT) {
+                return LedgerResult.LIMIT_EXCEEDED;
+            }
+            long now = System.currentTimeMillis();
+            LedgerResult limitCheck = account.getSpendingLimits().checkWithdrawal(amount, now);
+            if (limitCheck != LedgerResult.SUCCESS) {
+                return limitCheck;
+            }
+            // Every balance change holds this stripe, so the checks above still hold here
+            sequence = log(TransactionJournal.WITHDRAWAL, now, account.getAccountNumber(), null, amount, null, null);
+            applyWithdrawal(account, amount, now, sequence, true);
+            account.getSpendingLimits().recordWithdrawal(amount, now);
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(sequence);
+        return LedgerResult.SUCCESS;
+    }
+    
+    public LedgerResult deposit(BankAccount account, long amount) {
+        if (amount <= 0) {
+            return LedgerResult.INVALID_AMOUNT;
+        }
+        if (amount > DEPOSIT_LIMIT) {
+            return LedgerResult.LIMIT_EXCEEDED;
+        }
+        
+        // The credit itself is a CAS; the stripe keeps it in step with the journal and snapshots
+        long sequence;
+        ReentrantLock lock = stripeFor(account);
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            sequence = log(TransactionJournal.DEPOSIT, now, account.getAccountNumber(), null, amount, null, null);
+            applyDeposit(account, amount, now, sequence, true);
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(sequence);
+        return LedgerResult.SUCCESS;
+    }
+    
+    public LedgerResult transfer(BankAccount source, BankAccount recipient, long amount) {
+        if (recipient == null) {
+            return LedgerResult.ACCOUNT_NOT_FOUND;
+        }
+        if (source.getAccountNumber().equals(recipient.getAccountNumber())) {
+            return LedgerResult.SAME_ACCOUNT;
+        }
+        if (amount <= 0) {
+            return LedgerResult.INVALID_AMOUNT;
+        }
+        
+        int first = stripeIndex(source.getAccountNumber());
+        int second = stripeIndex(recipient.getAccountNumber());
+        if (first > second) {
+            int swap = first;
+            first = second;
+            second = swap;
+        }
+        
+        long sequence;
+        stripes[first].lock();
+        if (second != first) {
+            stripes[second].lock();
+        }
+        try {
+            if (amount > source.getAccountBalance()) {
+                return LedgerResult.INSUFFICIENT_BALANCE;
+            }
+            if (amount > TRANSFER_LIMIT) {
+                return LedgerResult.LIMIT_EXCEEDED;
+            }
+            long now = System.currentTimeMillis();
+            LedgerResult limitCheck = source.getSpendingLimits().checkTransfer(amount, now);
+            if (limitCheck != LedgerResult.SUCCESS) {
+                return limitCheck;
+            }
+            
+            sequence = log(TransactionJournal.TRANSFER, now, source.getAccountNumber(),
+                           recipient.getAccountNumber(), amount, null, null);
+            applyTransfer(source, recipient, amount, now, sequence, true, true, false);
+        } finally {
+            if (second != first) {
+                stripes[second].unlock();
+            }
+            stripes[first].unlock();
+        }
+        awaitDurable(sequence);
+        return LedgerResult.SUCCESS;
+    }
+    
+    // Pays every leg from source or none of them: all stripes involved are held for the whole batch
+    public TransferBatchResult transferBatch(BankAccount source, List<TransferLeg> legs) {
+        int legCount = legs.size();
+        if (legCount == 0) {
+            return new TransferBatchResult(LedgerResult.INVALID_AMOUNT, -1, 0, 0);
+        }
+        
+        BankAccount[] recipients = new BankAccount[legCount];
+        String[] recipientNumbers = new String[legCount];
+        long[] amounts = new long[legCount];
+        boolean[] involvedStripes = new boolean[STRIPE_COUNT];
+        involvedStripes[stripeIndex(source.getAccountNumber())] = true;
+        long total = 0;
+        
+        for (int i = 0; i < legCount; i++) {
+            TransferLeg leg = legs.get(i);
+            BankAccount recipient = accounts.get(leg.getRecipientAccountNumber());
+            long amount = leg.getAmount();
+            
+            if (recipient == null) {
+                return new TransferBatchResult(LedgerResult.ACCOUNT_NOT_FOUND, i, legCount, 0);
+            }
+            if (recipient.getAccountNumber().equals(source.getAccountNumber())) {
+                return new TransferBatchResult(LedgerResult.SAME_ACCOUNT, i, legCount, 0);
+            }
+            if (amount <= 0) {
+                return new TransferBatchResult(LedgerResult.INVALID_AMOUNT, i, legCount, 0);
+            }
+            if (amount > TRANSFER_LIMIT) {
+                return new TransferBatchResult(LedgerResult.LIMIT_EXCEEDED, i, legCount, 0);
+            }
+            
+            recipients[i] = recipient;
+            recipientNumbers[i] = recipient.getAccountNumber();
+            amounts[i] = amount;
+            total += amount;
+            involvedStripes[stripeIndex(recipient.getAccountNumber())] = true;
+        }
+        
+        long sequence = 0;
+        lockStripes(involvedStripes);
+        try {
+            if (total > source.getAccountBalance()) {
+                return new TransferBatchResult(LedgerResult.INSUFFICIENT_BALANCE, -1, legCount, total);
+            }
+            // Batches have their own daily cap on the total, instead of the customer's transfer limits
+            long now = System.currentTimeMillis();
+            LedgerResult limitCheck = source.getSpendingLimits().checkBatch(total, now);
+            if (limitCheck != LedgerResult.SUCCESS) {
+                return new TransferBatchResult(limitCheck, -1, legCount, total);
+            }
+            
+            if (journal != null) {
+                sequence = journal.appendTransferBatch(now, source.getAccountNumber(), recipientNumbers, amounts, total);
+            }
+            for (int i = 0; i < legCount; i++) {
+                applyTransfer(source, recipients[i], amounts[i], now, sequence, true, true, true);
+            }
+        } finally {
+            unlockStripes(involvedStripes);
+        }
+        awaitDurable(sequence);
+        return new TransferBatchResult(LedgerResult.SUCCESS, -1, legCount, total);
+    }
+    
+    // Consistent sum across all accounts; holds every stripe while reading
+    public long getTotalBalance() {
+        lockAllStripes();
+        try {
+            long total = 0;
+            for (BankAccount account : accounts.values()) {
+                total += account.getAccountBalance();
+            }
+            return total;
+        } finally {
+            unlockAllStripes();
+        }
+    }
+    
+    public void writeSnapshot() throws IOException {
+        if (journal == null) {
+            return;
+        }
+        
+        long[] mark;
+        List<BankAccount> copies = new ArrayList<>();
+        lockAllStripes();
+        try {
+            mark = journal.mark();
+            for (BankAccount account : accounts.values()) {
+                BankAccount copy = new BankAccount(account.getAccountNumber(), account.getPinCredential(),
+                                                   account.getAccountHolderName(), account.getAccountBalance());
+                copy.getSpendingLimits().copyFrom(account.getSpendingLimits());
+                copies.add(copy);
+            }
+        } finally {
+            unlockAllStripes();
+        }
+        
+        // Never let a snapshot get ahead of what the journal has made durable. The journal is not
+        // replayed before the snapshot, so history up to it must be on disk as well.
+        journal.awaitDurable(mark[1]);
+        for (BankAccount account : accounts.values()) {
+            account.forceActivity();
+        }
+        new LedgerSnapshot(mark[0], mark[1], copies).writeTo(dataDirectory.resolve(SNAPSHOT_FILE));
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+    
+    private BankAccount newAccount(String accountNumber, PinCredential pinCredential, String holderName,
+                                   long balance) {
+        if (dataDirectory == null) {
+            return new BankAccount(accountNumber, pinCredential, holderName, balance);
+        }
+        try {
+            HistoryStore history = HistoryStore.open(
+                dataDirectory.resolve(HISTORY_DIRECTORY).resolve(accountNumber + ".hist"));
+            return new BankAccount(accountNumber, pinCredential, holderName, balance, history);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open history for account " + accountNumber, e);
+        }
+    }
+    
+    private void applyWithdrawal(BankAccount account, long amount, long timestamp, long sequence,
+                                 boolean recordHistory) {
+        account.debit(amount);
+        if (recordHistory) {
+            account.recordActivity(TransactionType.WITHDRAWAL, -amount, null, timestamp, sequence);
+        }
+    }
+    
+    private void applyDeposit(BankAccount account, long amount, long timestamp, long sequence,
+                              boolean recordHistory) {
+        account.credit(amount);
+        if (recordHistory) {
+            account.recordActivity(TransactionType.DEPOSIT, amount, null, timestamp, sequence);
+        }
+    }
+    
+    private void applyTransfer(BankAccount source, BankAccount recipient, long amount, long timestamp,
+                               long sequence, boolean recordSource, boolean recordRecipient, boolean batch) {
+        applyWithdrawal(source, amount, timestamp, sequence, recordSource);
+        applyDeposit(recipient, amount, timestamp, sequence, recordRecipient);
+        if (batch) {
+            source.getSpendingLimits().recordBatch(amount, timestamp);
+        } else {
+            source.getSpendingLimits().recordTransfer(amount, timestamp);
+        }
+        
+        if (recordSource) {
+            source.recordActivity(TransactionType.TRANSFER_OUT, -amount, recipient, timestamp, sequence);
+        }
+        if (recordRecipient) {
+            recipient.recordActivity(TransactionType.TRANSFER_IN, amount, source, timestamp, sequence);
+        }
+    }
+    
+    // Recovery path: entries were validated when first written, so they are applied as-is.
+    // History files survive restarts on their own, so only entries they have not seen are recorded.
+    // Spending windows come from the snapshot, so every replayed entry counts towards them.
+    private void applyEntry(JournalEntry entry) {
+        BankAccount account = accounts.get(entry.getAccountNumber());
+        long sequence = entry.getSequence();
+        switch (entry.getEntryType()) {
+            case TransactionJournal.OPEN_ACCOUNT:
+                accounts.putIfAbsent(entry.getAccountNumber(), newAccount(entry.getAccountNumber(),
+                    PinCredential.decode(entry.getPinCode()), entry.getAccountHolderName(), entry.getAmount()));
+                break;
+            case TransactionJournal.DEPOSIT:
+                applyDeposit(account, entry.getAmount(), entry.getTimestamp(), sequence,
+                             sequence > account.getLastRecordedSequence());
+                break;
+            case TransactionJournal.WITHDRAWAL:
+                applyWithdrawal(account, entry.getAmount(), entry.getTimestamp(), sequence,
+                                sequence > account.getLastRecordedSequence());
+                account.getSpendingLimits().recordWithdrawal(entry.getAmount(), entry.getTimestamp());
+                break;
+            case TransactionJournal.TRANSFER:
+                BankAccount recipient = accounts.get(entry.getCounterpartyAccountNumber());
+                applyTransfer(account, recipient, entry.getAmount(), entry.getTimestamp(), sequence,
+                              sequence > account.getLastRecordedSequence(),
+                              sequence > recipient.getLastRecordedSequence(), false);
+                break;
+            case TransactionJournal.TRANSFER_BATCH:
+                applyTransferBatch(account, entry);
+                break;
+            default:
+                throw new IllegalStateException("Unknown journal entry type " + entry.getEntryType());
+        }
+    }
+    
+    private void applyTransferBatch(BankAccount source, JournalEntry entry) {
+        String[] recipientNumbers = entry.getLegAccountNumbers();
+        long[] amounts = entry.getLegAmounts();
+        long sequence = entry.getSequence();
+        
+        // Decide what history is missing before any leg is recorded
+        boolean recordSource = sequence > source.getLastRecordedSequence();
+        BankAccount[] recipients = new BankAccount[recipientNumbers.length];
+        boolean[] recordRecipient = new boolean[recipientNumbers.length];
+        for (int i = 0; i < recipients.length; i++) {
+            recipients[i] = accounts.get(recipientNumbers[i]);
+            recordRecipient[i] = sequence > recipients[i].getLastRecordedSequence();
+        }
+        
+        for (int i = 0; i < recipients.length; i++) {
+            applyTransfer(source, recipients[i], amounts[i], entry.getTimestamp(), sequence,
+                          recordSource, recordRecipient[i], true);
+        }
+    }
+    
+    private long log(byte entryType, long timestamp, String accountNumber, String counterparty,
+                     long amount, String pinCode, String holderName) {
+        if (journal == null) {
+            return 0;
+        }
+        return journal.append(entryType, timestamp, accountNumber, counterparty, amount, pinCode, holderName);
+    }
+    
+    private void awaitDurable(long sequence) {
+        if (journal == null || sequence == 0) {
+            return;
+        }
+        journal.awaitDurable(sequence);
+        
+        if (journal.getEntriesSinceMark() >= SNAPSHOT_INTERVAL && snapshotInProgress.compareAndSet(false, true)) {
+            try {
+                writeSnapshot();
+            } catch (IOException e) {
+                System.out.println("Warning: ledger snapshot failed: " + e.getMessage());
+            } finally {
+                snapshotInProgress.set(false);
+            }
+        }
+    }
+    
+    private void lockStripes(boolean[] involved) {
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            if (involved[i]) {
+                stripes[i].lock();
+            }
+        }
+    }
+    
+    private void unlockStripes(boolean[] involved) {
+        for (int i = STRIPE_COUNT - 1; i >= 0; i--) {
+            if (involved[i]) {
+                stripes[i].unlock();
+            }
+        }
+    }
+    
+    private void lockAllStripes() {
+        for (ReentrantLock lock : stripes) {
+            lock.lock();
+        }
+    }
+    
+    private void unlockAllStripes() {
+        for (int i = STRIPE_COUNT - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+    
+    private ReentrantLock stripeFor(BankAccount account) {
+        return stripes[stripeIndex(account.getAccountNumber())];
+    }
+    
+    private int stripeIndex(String accountNumber) {
+        int h = accountNumber.hashCode();
+        h ^= (h >>> 16);
+        return h & (STRIPE_COUNT - 1);
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Point-in-time copy of every account balance, tagged with the journal
+ * position it covers. Recovery loads the latest snapshot and replays only
+ * the journal entries written after it.
+ */
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+public class LedgerSnapshot {
+    private static final int FORMAT_MAGIC = 0x41544D33; // "ATM3", adds the batch payout window
+    private static final int WINDOWS_FORMAT_MAGIC = 0x41544D32; // "ATM2", adds spending limit windows
+    private static final int LEGACY_FORMAT_MAGIC = 0x41544D53; // "ATMS"
+    
+    private long journalOffset;
+    private long lastSequence;
+    private List<BankAccount> accounts;
+    
+    public LedgerSnapshot(long journalOffset, long lastSequence, List<BankAccount> accounts) {
+        this.journalOffset = journalOffset;
+        this.lastSequence = lastSequence;
+        this.accounts = accounts;
+    }
+    
+    public long getJournalOffset() {
+        return journalOffset;
+    }
+    
+    public long getLastSequence() {
+        return lastSequence;
+    }
+    
+    public List<BankAccount> getAccounts() {
+        return accounts;
+    }
+    
+    // Written to a temporary file and renamed, so a crash never leaves a half-written snapshot
+    public void writeTo(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(FORMAT_MAGIC);
+            out.writeLong(journalOffset);
+            out.writeLong(lastSequence);
+            out.writeInt(accounts.size());
+            for (BankAccount account : accounts) {
+                out.writeUTF(account.getAccountNumber());
+                out.writeUTF(account.getPinCredential().encode());
+                out.writeUTF(account.getAccountHolderName());
+                out.writeLong(account.getAccountBalance());
+                account.getSpendingLimits().writeTo(out);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    public static LedgerSnapshot readFrom(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            int magic = in.readInt();
+            if (magic != FORMAT_MAGIC && magic != WINDOWS_FORMAT_MAGIC && magic != LEGACY_FORMAT_MAGIC) {
+                throw new IOException("Not a ledger snapshot: " + file);
+            }
+            long journalOffset = in.readLong();
+            long lastSequence = in.readLong();
+            int count = in.readInt();
+            List<BankAccount> accounts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String accountNumber = in.readUTF();
+                PinCredential pinCredential = PinCredential.decode(in.readUTF());
+                String holderName = in.readUTF();
+                long balance = in.readLong();
+                BankAccount account = new BankAccount(accountNumber, pinCredential, holderName, balance);
+                if (magic != LEGACY_FORMAT_MAGIC) {
+                    account.getSpendingLimits().readFrom(in, magic == FORMAT_MAGIC);
+                }
+                accounts.add(account);
+            }
+            return new LedgerSnapshot(journalOffset, lastSequence, accounts);
+        }
+    }
+}
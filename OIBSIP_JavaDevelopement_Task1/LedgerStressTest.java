@@ -0,0 +1,124 @@
+/**
+ * Concurrent stress run for the ledger.
+ * Usage: java LedgerStressTest [threads] [transfers per thread] [accounts]
+ * Every thread pays random amounts between random accounts drawn from the
+ * same small set, so transfers keep colliding on stripes in both
+ * directions, while an auditor keeps reading the total balance. Balances are small enough that some transfers
+ * are refused for lack of funds. The run fails if the total ever differs
+ * from the opening total, or if any account ends up negative.
+ */
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LedgerStressTest {
+    private static final long OPENING_BALANCE = Money.ofRupees(1000);
+    private static final long MAX_AMOUNT = Money.ofRupees(50);
+    
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0])
+                                      : Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        int transfersPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        int accountCount = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        
+        System.out.println(repeatChar('=', 60));
+        System.out.println("LEDGER STRESS TEST");
+        System.out.println("Threads: " + threads + " | Transfers per thread: " + transfersPerThread +
+                           " | Accounts: " + accountCount);
+        System.out.println(repeatChar('=', 60));
+        
+        LedgerService ledger = new LedgerService();
+        List<BankAccount> accounts = new ArrayList<>(accountCount);
+        for (int i = 0; i < accountCount; i++) {
+            accounts.add(ledger.openAccount(String.format("ST%05d", i), "0000", "Stress " + i, OPENING_BALANCE));
+        }
+        long expectedTotal = ledger.getTotalBalance();
+        
+        AtomicLong succeeded = new AtomicLong();
+        AtomicLong refused = new AtomicLong();
+        AtomicLong audits = new AtomicLong();
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        
+        // Reads the total while transfers are in flight; every stripe is held, so it must always match
+        Thread auditor = new Thread(() -> {
+            while (running.get()) {
+                long total = ledger.getTotalBalance();
+                audits.incrementAndGet();
+                if (total != expectedTotal) {
+                    failures.add("Total was " + Money.format(total) + " during the run");
+                    return;
+                }
+            }
+        }, "stress-auditor");
+        
+        CyclicBarrier start = new CyclicBarrier(threads);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException | BrokenBarrierException e) {
+                    return;
+                }
+                for (int i = 0; i < transfersPerThread; i++) {
+                    BankAccount source = accounts.get(random.nextInt(accountCount));
+                    BankAccount recipient = accounts.get(random.nextInt(accountCount));
+                    if (source == recipient) {
+                        continue;
+                    }
+                    LedgerResult result = ledger.transfer(source, recipient, 1 + random.nextLong(MAX_AMOUNT));
+                    if (result == LedgerResult.SUCCESS) {
+                        succeeded.incrementAndGet();
+                    } else {
+                        refused.incrementAndGet();
+                    }
+                }
+            }, "stress-" + t);
+        }
+        
+        long startTime = System.nanoTime();
+        auditor.start();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsedNanos = System.nanoTime() - startTime;
+        running.set(false);
+        auditor.join();
+        
+        long finalTotal = ledger.getTotalBalance();
+        if (finalTotal != expectedTotal) {
+            failures.add("Total is " + Money.format(finalTotal) + ", expected " + Money.format(expectedTotal));
+        }
+        for (BankAccount account : accounts) {
+            if (account.getAccountBalance() < 0) {
+                failures.add("Account " + account.getAccountNumber() + " is negative: " +
+                             Money.format(account.getAccountBalance()));
+            }
+        }
+        
+        System.out.printf("Transfers: %d succeeded, %d refused in %.1f s (%.0f/s)%n", succeeded.get(),
+                          refused.get(), elapsedNanos / 1e9, (succeeded.get() + refused.get()) / (elapsedNanos / 1e9));
+        System.out.println("Total balance audits during the run: " + audits.get());
+        System.out.println("Total balance: " + Money.format(finalTotal) + " (expected " +
+                           Money.format(expectedTotal) + ")");
+        System.out.println(repeatChar('=', 60));
+        if (!failures.isEmpty()) {
+            for (String failure : failures) {
+                System.out.println("FAILED: " + failure);
+            }
+            System.exit(1);
+        }
+        System.out.println("PASSED: money conserved, no negative balances");
+    }
+    
+    private static String repeatChar(char ch, int count) {
+        return ConsoleRenderer.rule(ch, count);
+    }
+}
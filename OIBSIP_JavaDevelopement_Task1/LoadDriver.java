@@ -0,0 +1,391 @@
+/**
+ * Headless load generator for the ATM console flows.
+ * Usage: java ATMInterface --load-test <customers> <sessions per customer> [workload file]
+ * Every simulated customer runs real ATMInterface sessions against a
+ * temporary ledger, with scripted input and captured output, so the test
+ * never touches the accounts in atm-data. A session logs
+ * in, runs its operations and logs out. Without a workload file each
+ * session is five random operations; a workload file gives the operations
+ * of every session, one per line: "history", "withdraw <amount>",
+ * "deposit <amount>" or "transfer <amount>" (paid to the next customer).
+ * Lines starting with # are ignored.
+ */
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+public class LoadDriver {
+    private static final String ACCOUNT_PREFIX = "LT";
+    private static final String CUSTOMER_PIN = "2468";
+    private static final long OPENING_BALANCE = Money.ofRupees(100000);
+    private static final int RANDOM_OPERATIONS_PER_SESSION = 5;
+    private static final long MAX_RANDOM_AMOUNT = Money.ofRupees(500);
+    
+    private enum Operation {
+        LOGIN("Login successful!"),
+        HISTORY("TRANSACTION HISTORY"),
+        WITHDRAW("Withdrawal successful!"),
+        DEPOSIT("Deposit successful!"),
+        TRANSFER("Transfer successful!");
+        
+        private final String successMarker;
+        
+        Operation(String successMarker) {
+            this.successMarker = successMarker;
+        }
+    }
+    
+    // One line of a workload: an operation and, except for history, an amount in paise
+    private static class Step {
+        final Operation operation;
+        final long amount;
+        
+        Step(Operation operation, long amount) {
+            this.operation = operation;
+            this.amount = amount;
+        }
+    }
+    
+    // Latencies and failures recorded by one customer; merged once every customer is done
+    private static class CustomerResult {
+        final long[] latencies;
+        final byte[] operations;
+        final boolean[] failed;
+        int count;
+        
+        CustomerResult(int capacity) {
+            latencies = new long[capacity];
+            operations = new byte[capacity];
+            failed = new boolean[capacity];
+        }
+    }
+    
+    public static void run(LedgerService ledger, int customers, int sessionsPerCustomer, Path workloadFile) {
+        System.out.println("\n" + repeatChar('=', 70));
+        System.out.println("LOAD TEST");
+        System.out.println("Customers: " + customers + " | Sessions per customer: " + sessionsPerCustomer);
+        System.out.println("Workload: " + (workloadFile == null ? "random" : workloadFile.toString()));
+        System.out.println(repeatChar('=', 70));
+        
+        List<Step> workload = null;
+        if (workloadFile != null) {
+            try {
+                workload = readWorkload(workloadFile);
+            } catch (IOException e) {
+                System.out.println("Could not read workload file: " + e.getMessage());
+                return;
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage());
+                return;
+            }
+            if (workload.isEmpty()) {
+                System.out.println("No operations found in workload file.");
+                return;
+            }
+        }
+        
+        ExecutorService executor = ATMServer.newSessionExecutor();
+        try {
+            System.out.println("Preparing " + customers + " customer accounts...");
+            runAll(executor, customers, index -> {
+                ledger.openAccount(accountNumber(index), CUSTOMER_PIN, "Load Customer " + index, OPENING_BALANCE);
+                return null;
+            });
+            
+            List<Step> script = workload;
+            long startTime = System.nanoTime();
+            List<CustomerResult> results = runAll(executor, customers,
+                index -> runCustomer(index, customers, sessionsPerCustomer, script));
+            long elapsedNanos = System.nanoTime() - startTime;
+            
+            report(results, elapsedNanos);
+            System.out.print(AtmMetrics.render());
+            System.out.println(repeatChar('=', 70));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private interface CustomerTask<T> {
+        T run(int index) throws Exception;
+    }
+    
+    private static <T> List<T> runAll(ExecutorService executor, int customers, CustomerTask<T> task) {
+        List<Future<T>> futures = new ArrayList<>(customers);
+        for (int i = 0; i < customers; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> task.run(index)));
+        }
+        
+        List<T> results = new ArrayList<>(customers);
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (Exception e) {
+                throw new IllegalStateException("Load test customer failed", e);
+            }
+        }
+        return results;
+    }
+    
+    private static CustomerResult runCustomer(int index, int customers, int sessions, List<Step> workload) {
+        Random random = new Random(index);
+        String recipient = accountNumber((index + 1) % customers);
+        int stepsPerSession = workload == null ? RANDOM_OPERATIONS_PER_SESSION : workload.size();
+        CustomerResult result = new CustomerResult(sessions * (stepsPerSession + 1));
+        
+        for (int session = 0; session < sessions; session++) {
+            List<Step> steps = workload == null ? randomSteps(random) : workload;
+            
+            // Record which input line starts each operation so its latency and output can be found afterwards
+            ScriptedInput input = new ScriptedInput();
+            int[] firstLines = new int[steps.size() + 2];
+            firstLines[0] = input.lineCount();
+            input.addLines("1", accountNumber(index), CUSTOMER_PIN);
+            for (int i = 0; i < steps.size(); i++) {
+                firstLines[i + 1] = input.lineCount();
+                addStep(input, steps.get(i), recipient);
+            }
+            firstLines[steps.size() + 1] = input.lineCount();
+            input.addLines("5", "3");
+            
+            ByteArrayOutputStream captured = new ByteArrayOutputStream(4096);
+            PrintStream out = new PrintStream(captured, false, StandardCharsets.UTF_8);
+            input.attach(captured);
+            new ATMInterface(input, out).run();
+            
+            byte[] output = captured.toByteArray();
+            for (int i = 0; i <= steps.size(); i++) {
+                Operation operation = i == 0 ? Operation.LOGIN : steps.get(i - 1).operation;
+                int from = firstLines[i];
+                int to = firstLines[i + 1];
+                int slot = result.count++;
+                result.operations[slot] = (byte) operation.ordinal();
+                result.latencies[slot] = input.requestTime(to) - input.requestTime(from);
+                result.failed[slot] = !input.outputBetween(output, from, to).contains(operation.successMarker);
+            }
+        }
+        return result;
+    }
+    
+    private static void addStep(ScriptedInput input, Step step, String recipient) {
+        String amount = Money.format(step.amount).replace(",", "");
+        switch (step.operation) {
+            case HISTORY:
+                // Stops after the first page; a stray "q" is just an invalid menu choice
+                input.addLines("1", "q");
+                break;
+            case WITHDRAW:
+                input.addLines("2", amount);
+                break;
+            case DEPOSIT:
+                input.addLines("3", amount);
+                break;
+            case TRANSFER:
+                input.addLines("4", recipient, amount);
+                break;
+            default:
+                throw new IllegalArgumentException("Not a session step: " + step.operation);
+        }
+    }
+    
+    // Withdraw 30%, deposit 30%, transfer 25%, history 15%
+    private static List<Step> randomSteps(Random random) {
+        List<Step> steps = new ArrayList<>(RANDOM_OPERATIONS_PER_SESSION);
+        for (int i = 0; i < RANDOM_OPERATIONS_PER_SESSION; i++) {
+            int roll = random.nextInt(100);
+            long amount = Money.ofRupees(1) + (long) (random.nextDouble() * MAX_RANDOM_AMOUNT);
+            if (roll < 30) {
+                steps.add(new Step(Operation.WITHDRAW, amount));
+            } else if (roll < 60) {
+                steps.add(new Step(Operation.DEPOSIT, amount));
+            } else if (roll < 85) {
+                steps.add(new Step(Operation.TRANSFER, amount));
+            } else {
+                steps.add(new Step(Operation.HISTORY, 0));
+            }
+        }
+        return steps;
+    }
+    
+    private static List<Step> readWorkload(Path file) throws IOException {
+        List<Step> steps = new ArrayList<>();
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                
+                String[] parts = line.split("\\s+");
+                Operation operation;
+                try {
+                    operation = Operation.valueOf(parts[0].toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    operation = null;
+                }
+                if (operation == null || operation == Operation.LOGIN) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": unknown operation \"" + parts[0] + "\"");
+                }
+                
+                if (operation == Operation.HISTORY) {
+                    steps.add(new Step(operation, 0));
+                    continue;
+                }
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": expected \"" +
+                                                       parts[0] + " <amount>\"");
+                }
+                try {
+                    steps.add(new Step(operation, Money.parse(parts[1])));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": invalid amount");
+                }
+            }
+        }
+        return steps;
+    }
+    
+    private static void report(List<CustomerResult> results, long elapsedNanos) {
+        Operation[] operations = Operation.values();
+        long[][] latencies = new long[operations.length + 1][];
+        int[] counts = new int[operations.length + 1];
+        int[] errors = new int[operations.length + 1];
+        int total = 0;
+        for (CustomerResult result : results) {
+            total += result.count;
+        }
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new long[total];
+        }
+        
+        // The last row is every operation together
+        int all = operations.length;
+        for (CustomerResult result : results) {
+            for (int i = 0; i < result.count; i++) {
+                int type = result.operations[i];
+                latencies[type][counts[type]++] = result.latencies[i];
+                latencies[all][counts[all]++] = result.latencies[i];
+                if (result.failed[i]) {
+                    errors[type]++;
+                    errors[all]++;
+                }
+            }
+        }
+        
+        double elapsedSeconds = elapsedNanos / 1_000_000_000.0;
+        System.out.printf("Elapsed: %.2f s | Operations: %d | Throughput: %.0f ops/sec%n",
+                          elapsedSeconds, total, total / elapsedSeconds);
+        System.out.println(repeatChar('-', 70));
+        System.out.printf("%-10s %8s %7s %9s %9s %9s %9s %9s%n",
+                          "Operation", "Count", "Errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (int type = 0; type <= all; type++) {
+            if (counts[type] == 0) {
+                continue;
+            }
+            long[] sorted = Arrays.copyOf(latencies[type], counts[type]);
+            Arrays.sort(sorted);
+            System.out.printf("%-10s %8d %7d %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                              type == all ? "ALL" : operations[type].name(), counts[type], errors[type],
+                              percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                              percentile(sorted, 99.9), sorted[sorted.length - 1] / 1_000_000.0);
+        }
+        System.out.println(repeatChar('=', 70));
+    }
+    
+    // Nearest-rank percentile, in milliseconds
+    private static double percentile(long[] sorted, double percent) {
+        int rank = (int) Math.ceil(percent / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1_000_000.0;
+    }
+    
+    private static String accountNumber(int index) {
+        return ACCOUNT_PREFIX + String.format("%05d", index);
+    }
+    
+    private static String repeatChar(char ch, int count) {
+        return ConsoleRenderer.rule(ch, count);
+    }
+    
+    /**
+     * Console input that hands over one line per read and notes when each
+     * line was asked for, and how much output had been written by then.
+     * ATMInterface flushes its prompt before every read, so the time between
+     * two requests is the time the session spent on the line in between.
+     */
+    private static class ScriptedInput extends InputStream {
+        private final List<byte[]> lines = new ArrayList<>();
+        private long[] requestTimes;
+        private int[] outputOffsets;
+        private ByteArrayOutputStream output;
+        private int nextLine;
+        private int nextByte;
+        
+        void addLines(String... values) {
+            for (String value : values) {
+                lines.add((value + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        
+        int lineCount() {
+            return lines.size();
+        }
+        
+        void attach(ByteArrayOutputStream output) {
+            this.output = output;
+            // One extra slot: the final request that finds the script exhausted
+            requestTimes = new long[lines.size() + 1];
+            outputOffsets = new int[lines.size() + 1];
+        }
+        
+        long requestTime(int line) {
+            return requestTimes[line];
+        }
+        
+        String outputBetween(byte[] fullOutput, int fromLine, int toLine) {
+            int from = outputOffsets[fromLine];
+            return new String(fullOutput, from, outputOffsets[toLine] - from, StandardCharsets.UTF_8);
+        }
+        
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (nextLine >= lines.size()) {
+                if (nextLine == lines.size()) {
+                    noteRequest(nextLine++);
+                }
+                return -1;
+            }
+            if (nextByte == 0) {
+                noteRequest(nextLine);
+            }
+            
+            byte[] line = lines.get(nextLine);
+            int count = Math.min(length, line.length - nextByte);
+            System.arraycopy(line, nextByte, buffer, offset, count);
+            nextByte += count;
+            if (nextByte == line.length) {
+                nextLine++;
+                nextByte = 0;
+            }
+            return count;
+        }
+        
+        private void noteRequest(int line) {
+            requestTimes[line] = System.nanoTime();
+            outputOffsets[line] = output.size();
+        }
+    }
+}
@@ -0,0 +1,5 @@
+public enum LoginResult {
+    SUCCESS,
+    INVALID_CREDENTIALS,
+    LOCKED_OUT
+}
@@ -0,0 +1,91 @@
+/**
+ * Fixed-point money helpers.
+ * All ledger amounts are whole paise held in a long (Rs. 1 = 100 paise), so
+ * balances never pick up binary rounding drift and formatting needs no Formatter.
+ */
+
+public final class Money {
+    public static final long PAISE_PER_RUPEE = 100;
+    
+    private static final int MAX_RUPEE_DIGITS = 15;
+    
+    private Money() {
+    }
+    
+    public static long ofRupees(long rupees) {
+        return rupees * PAISE_PER_RUPEE;
+    }
+    
+    // Parses "250", "250.5" or "250.50" into paise; rejects more than two decimals
+    public static long parse(String text) {
+        String value = text.trim();
+        int length = value.length();
+        int pos = 0;
+        boolean negative = false;
+        
+        if (pos < length && (value.charAt(pos) == '-' || value.charAt(pos) == '+')) {
+            negative = value.charAt(pos) == '-';
+            pos++;
+        }
+        
+        long rupees = 0;
+        int integerDigits = 0;
+        while (pos < length && value.charAt(pos) != '.') {
+            if (integerDigits == MAX_RUPEE_DIGITS) {
+                throw new NumberFormatException("Amount too large: " + text);
+            }
+            rupees = rupees * 10 + digitAt(value, pos);
+            integerDigits++;
+            pos++;
+        }
+        
+        long paise = 0;
+        int fractionDigits = 0;
+        if (pos < length) {
+            pos++; // skip '.'
+            while (pos < length) {
+                if (fractionDigits == 2) {
+                    throw new NumberFormatException("At most two decimal places allowed: " + text);
+                }
+                paise = paise * 10 + digitAt(value, pos);
+                fractionDigits++;
+                pos++;
+            }
+        }
+        
+        if (integerDigits == 0 && fractionDigits == 0) {
+            throw new NumberFormatException("Not an amount: " + text);
+        }
+        if (fractionDigits == 1) {
+            paise *= 10;
+        }
+        
+        long total = rupees * PAISE_PER_RUPEE + paise;
+        return negative ? -total : total;
+    }
+    
+    // Appends the amount as rupees with two decimals, e.g. 1500050 -> "15000.50"
+    public static StringBuilder append(StringBuilder sb, long paise) {
+        if (paise < 0) {
+            sb.append('-');
+            paise = -paise;
+        }
+        long fraction = paise % PAISE_PER_RUPEE;
+        sb.append(paise / PAISE_PER_RUPEE).append('.');
+        sb.append((char) ('0' + fraction / 10));
+        sb.append((char) ('0' + fraction % 10));
+        return sb;
+    }
+    
+    public static String format(long paise) {
+        return append(new StringBuilder(24), paise).toString();
+    }
+    
+    private static int digitAt(String value, int pos) {
+        char ch = value.charAt(pos);
+        if (ch < '0' || ch > '9') {
+            throw new NumberFormatException("Not an amount: " + value);
+        }
+        return ch - '0';
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Salted PIN hash plus login throttling for one account.
+ * PINs are stored as PBKDF2 hashes and compared in constant time. Every
+ * attempt reserves a failure with a lock-free CAS on a single packed long
+ * before any hashing, and a successful login clears it, so concurrent
+ * guesses cannot all slip in under the limit. Once MAX_FAILED_ATTEMPTS is
+ * reached the account rejects every login for LOCKOUT_MILLIS. After a
+ * successful login a cheap SHA-256 digest of the PIN is remembered, so
+ * repeat logins skip PBKDF2. Every rejection still pays for a full PBKDF2,
+ * so a wrong PIN, a locked account and (with ATMInterface's dummy
+ * credential) an unknown account all take the same time.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+public class PinCredential {
+    public static final int MAX_FAILED_ATTEMPTS = 5;
+    public static final long LOCKOUT_MILLIS = 15 * 60 * 1000; // 15 minutes
+    
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String ENCODING_PREFIX = "pbkdf2-sha256";
+    private static final int ITERATIONS = 100000;
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    
+    // Failed-attempt state: count in the top 16 bits, window start millis in the low 48
+    private static final int COUNT_SHIFT = 48;
+    private static final long TIME_MASK = (1L << COUNT_SHIFT) - 1;
+    
+    private final byte[] salt;
+    private final byte[] hash;
+    private final int iterations;
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private volatile byte[] verifiedDigest;
+    
+    private PinCredential(byte[] salt, byte[] hash, int iterations) {
+        this.salt = salt;
+        this.hash = hash;
+        this.iterations = iterations;
+    }
+    
+    public static PinCredential create(String pin) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        return new PinCredential(salt, pbkdf2(pin, salt, ITERATIONS), ITERATIONS);
+    }
+    
+    // Reads the form written by encode(); anything else is a legacy plaintext PIN and is hashed now
+    public static PinCredential decode(String stored) {
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4 || !parts[0].equals(ENCODING_PREFIX)) {
+            return create(stored);
+        }
+        Base64.Decoder decoder = Base64.getDecoder();
+        return new PinCredential(decoder.decode(parts[2]), decoder.decode(parts[3]), Integer.parseInt(parts[1]));
+    }
+    
+    public String encode() {
+        Base64.Encoder encoder = Base64.getEncoder();
+        return ENCODING_PREFIX + "$" + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+    
+    public LoginResult verify(String pin) {
+        long now = System.currentTimeMillis();
+        boolean allowed = reserveAttempt(now);
+        
+        byte[] digest = quickDigest(pin);
+        byte[] cached = verifiedDigest;
+        boolean matches;
+        if (allowed && cached != null && MessageDigest.isEqual(cached, digest)) {
+            // A known-good PIN is cached, so one SHA-256 settles a correct attempt
+            matches = true;
+        } else {
+            // Rejections always pay for PBKDF2, so they cannot be told apart by time
+            matches = MessageDigest.isEqual(hash, pbkdf2(pin, salt, iterations));
+            if (!allowed) {
+                return LoginResult.LOCKED_OUT;
+            }
+            if (matches) {
+                verifiedDigest = digest;
+            }
+        }
+        
+        if (matches) {
+            failedAttempts.set(0);
+            return LoginResult.SUCCESS;
+        }
+        return isLockedOut(now) ? LoginResult.LOCKED_OUT : LoginResult.INVALID_CREDENTIALS;
+    }
+    
+    // Full-cost check with no lockout bookkeeping or caching
+    public boolean matches(String pin) {
+        return MessageDigest.isEqual(hash, pbkdf2(pin, salt, iterations));
+    }
+    
+    public boolean isLockedOut(long now) {
+        long state = failedAttempts.get();
+        return (state >>> COUNT_SHIFT) >= MAX_FAILED_ATTEMPTS && now - (state & TIME_MASK) < LOCKOUT_MILLIS;
+    }
+    
+    // Counts this attempt as a failure up front; a successful login clears it again.
+    // Returns false, without counting anything, if the account is already locked.
+    private boolean reserveAttempt(long now) {
+        while (true) {
+            long state = failedAttempts.get();
+            long count = state >>> COUNT_SHIFT;
+            long windowStart = state & TIME_MASK;
+            
+            long newCount;
+            long newStart;
+            if (count == 0 || now - windowStart >= LOCKOUT_MILLIS) {
+                newCount = 1;
+                newStart = now;
+            } else if (count >= MAX_FAILED_ATTEMPTS) {
+                return false;
+            } else {
+                newCount = count + 1;
+                // The lockout period runs from the attempt that triggered it
+                newStart = newCount == MAX_FAILED_ATTEMPTS ? now : windowStart;
+            }
+            
+            if (failedAttempts.compareAndSet(state, (newCount << COUNT_SHIFT) | (newStart & TIME_MASK))) {
+                return true;
+            }
+        }
+    }
+    
+    private byte[] quickDigest(String pin) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(salt);
+            return sha.digest(pin.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private static byte[] pbkdf2(String pin, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(pin.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
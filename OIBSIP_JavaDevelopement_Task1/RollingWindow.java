@@ -0,0 +1,74 @@
+/**
+ * Running total over a sliding time window, kept in fixed time buckets.
+ * Adding and reading are O(1) amortised: moving forward only clears the
+ * buckets that fell out of the window since the last call, and the cost
+ * never depends on how many transactions went into the window.
+ * Not thread-safe; callers hold the owning account's ledger stripe.
+ */
+
+import java.io.*;
+
+public class RollingWindow {
+    private final long bucketMillis;
+    private final long[] buckets;
+    private long newestBucket;
+    private long total;
+    
+    public RollingWindow(int bucketCount, long bucketMillis) {
+        this.bucketMillis = bucketMillis;
+        this.buckets = new long[bucketCount];
+    }
+    
+    public long getTotal(long now) {
+        advance(now);
+        return total;
+    }
+    
+    public void add(long amount, long now) {
+        advance(now);
+        buckets[slot(newestBucket)] += amount;
+        total += amount;
+    }
+    
+    public void copyFrom(RollingWindow other) {
+        System.arraycopy(other.buckets, 0, buckets, 0, buckets.length);
+        newestBucket = other.newestBucket;
+        total = other.total;
+    }
+    
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(newestBucket);
+        for (long bucket : buckets) {
+            out.writeLong(bucket);
+        }
+    }
+    
+    public void readFrom(DataInput in) throws IOException {
+        newestBucket = in.readLong();
+        total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = in.readLong();
+            total += buckets[i];
+        }
+    }
+    
+    // A timestamp older than the newest bucket (clock skew, replay) is counted in the newest bucket
+    private void advance(long now) {
+        long current = now / bucketMillis;
+        if (current <= newestBucket) {
+            return;
+        }
+        
+        long expired = Math.min(current - newestBucket, buckets.length);
+        for (long i = 1; i <= expired; i++) {
+            int slot = slot(newestBucket + i);
+            total -= buckets[slot];
+            buckets[slot] = 0;
+        }
+        newestBucket = current;
+    }
+    
+    private int slot(long bucket) {
+        return (int) (bucket % buckets.length);
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Rolling daily and monthly caps on money leaving one account.
+ * Daily windows cover the last 24 hours in hourly buckets; the monthly
+ * window covers the last 30 days in daily buckets. Batch payouts (bulk
+ * transfers such as payroll) have a daily cap of their own and do not count
+ * towards the customer's transfer or monthly limits.
+ */
+
+import java.io.*;
+
+public class SpendingLimits {
+    public static final long DAILY_WITHDRAWAL_LIMIT = Money.ofRupees(100000);
+    public static final long DAILY_TRANSFER_LIMIT = Money.ofRupees(100000);
+    public static final long MONTHLY_OUTFLOW_LIMIT = Money.ofRupees(500000);
+    public static final long DAILY_BATCH_LIMIT = Money.ofRupees(5000000);
+    
+    private static final long HOUR_MILLIS = 60 * 60 * 1000;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+    
+    private final RollingWindow dailyWithdrawals = new RollingWindow(24, HOUR_MILLIS);
+    private final RollingWindow dailyTransfers = new RollingWindow(24, HOUR_MILLIS);
+    private final RollingWindow monthlyOutflow = new RollingWindow(30, DAY_MILLIS);
+    private final RollingWindow dailyBatchPayouts = new RollingWindow(24, HOUR_MILLIS);
+    
+    public LedgerResult checkWithdrawal(long amount, long now) {
+        if (dailyWithdrawals.getTotal(now) + amount > DAILY_WITHDRAWAL_LIMIT) {
+            return LedgerResult.DAILY_LIMIT_EXCEEDED;
+        }
+        return checkMonthly(amount, now);
+    }
+    
+    public LedgerResult checkTransfer(long amount, long now) {
+        if (dailyTransfers.getTotal(now) + amount > DAILY_TRANSFER_LIMIT) {
+            return LedgerResult.DAILY_LIMIT_EXCEEDED;
+        }
+        return checkMonthly(amount, now);
+    }
+    
+    public LedgerResult checkBatch(long amount, long now) {
+        if (dailyBatchPayouts.getTotal(now) + amount > DAILY_BATCH_LIMIT) {
+            return LedgerResult.DAILY_LIMIT_EXCEEDED;
+        }
+        return LedgerResult.SUCCESS;
+    }
+    
+    public void recordWithdrawal(long amount, long now) {
+        dailyWithdrawals.add(amount, now);
+        monthlyOutflow.add(amount, now);
+    }
+    
+    public void recordTransfer(long amount, long now) {
+        dailyTransfers.add(amount, now);
+        monthlyOutflow.add(amount, now);
+    }
+    
+    public void recordBatch(long amount, long now) {
+        dailyBatchPayouts.add(amount, now);
+    }
+    
+    public long getDailyWithdrawals(long now) {
+        return dailyWithdrawals.getTotal(now);
+    }
+    
+    public long getDailyTransfers(long now) {
+        return dailyTransfers.getTotal(now);
+    }
+    
+    public long getMonthlyOutflow(long now) {
+        return monthlyOutflow.getTotal(now);
+    }
+    
+    public long getDailyBatchPayouts(long now) {
+        return dailyBatchPayouts.getTotal(now);
+    }
+    
+    public void copyFrom(SpendingLimits other) {
+        dailyWithdrawals.copyFrom(other.dailyWithdrawals);
+        dailyTransfers.copyFrom(other.dailyTransfers);
+        monthlyOutflow.copyFrom(other.monthlyOutflow);
+        dailyBatchPayouts.copyFrom(other.dailyBatchPayouts);
+    }
+    
+    public void writeTo(DataOutput out) throws IOException {
+        dailyWithdrawals.writeTo(out);
+        dailyTransfers.writeTo(out);
+        monthlyOutflow.writeTo(out);
+        dailyBatchPayouts.writeTo(out);
+    }
+    
+    // Snapshots written before batch payouts had their own window leave it empty
+    public void readFrom(DataInput in, boolean withBatchWindow) throws IOException {
+        dailyWithdrawals.readFrom(in);
+        dailyTransfers.readFrom(in);
+        monthlyOutflow.readFrom(in);
+        if (withBatchWindow) {
+            dailyBatchPayouts.readFrom(in);
+        }
+    }
+    
+    private LedgerResult checkMonthly(long amount, long now) {
+        if (monthlyOutflow.getTotal(now) + amount > MONTHLY_OUTFLOW_LIMIT) {
+            return LedgerResult.MONTHLY_LIMIT_EXCEEDED;
+        }
+        return LedgerResult.SUCCESS;
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * Account statement export for a date range.
+ * Usage: java ATMInterface --statement <account> <from yyyy-MM-dd> <to yyyy-MM-dd> <file>
+ * A file ending in .bin gets the compact binary format, anything else CSV.
+ * Records are streamed straight from the history store to the output, so
+ * memory use stays the same however long the account's history is.
+ */
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+public class StatementExporter {
+    public static final String CSV_HEADER = "date_time,type,amount,counterparty_account,counterparty_name";
+    
+    // Binary layout: magic, version, account number, range, then one entry per record:
+    // type code, timestamp, amount, and for transfers the counterparty account and name.
+    // A type byte of -1 ends the records and is followed by the record count.
+    public static final int BINARY_MAGIC = 0x41544D58; // "ATMX"
+    public static final int BINARY_VERSION = 1;
+    
+    private static final DateTimeFormatter CSV_TIME_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+    private static final int BUFFER_BYTES = 64 * 1024;
+    
+    public static void run(LedgerService ledger, String accountNumber, String fromDate, String toDate, Path file) {
+        System.out.println("\n" + repeatChar('=', 55));
+        System.out.println("ACCOUNT STATEMENT EXPORT");
+        System.out.println("Account: " + accountNumber);
+        System.out.println("Period: " + fromDate + " to " + toDate);
+        System.out.println(repeatChar('=', 55));
+        
+        BankAccount account = ledger.findAccount(accountNumber);
+        if (account == null) {
+            System.out.println("Account not found!");
+            return;
+        }
+        
+        long fromMillis;
+        long toMillis;
+        try {
+            ZoneId zone = ZoneId.systemDefault();
+            fromMillis = LocalDate.parse(fromDate).atStartOfDay(zone).toInstant().toEpochMilli();
+            // The end date is inclusive
+            toMillis = LocalDate.parse(toDate).plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() - 1;
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date. Please use the format yyyy-MM-dd.");
+            return;
+        }
+        if (fromMillis > toMillis) {
+            System.out.println("The start date must not be after the end date.");
+            return;
+        }
+        
+        boolean binary = file.getFileName().toString().endsWith(".bin");
+        long startTime = System.nanoTime();
+        int exported;
+        try {
+            if (binary) {
+                try (OutputStream out = Files.newOutputStream(file)) {
+                    exported = writeBinary(account, fromMillis, toMillis, out);
+                }
+            } else {
+                try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                    exported = writeCsv(account, fromMillis, toMillis, out);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Could not write statement: " + e.getMessage());
+            return;
+        }
+        
+        System.out.println("Statement exported successfully!");
+        System.out.println("Transactions: " + exported);
+        System.out.println("Format: " + (binary ? "binary" : "CSV") + " -> " + file);
+        System.out.printf("Export time: %.3f ms%n", (System.nanoTime() - startTime) / 1_000_000.0);
+        System.out.println(repeatChar('=', 55));
+    }
+    
+    public static int writeCsv(BankAccount account, long fromMillis, long toMillis, Writer out) throws IOException {
+        Writer writer = out instanceof BufferedWriter ? out : new BufferedWriter(out, BUFFER_BYTES);
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        
+        // One row buffer for the whole statement
+        StringBuilder row = new StringBuilder(128);
+        int exported;
+        try {
+            exported = account.scanTransactions(fromMillis, toMillis, record -> {
+                row.setLength(0);
+                CSV_TIME_FORMAT.formatTo(Instant.ofEpochMilli(record.getTransactionTime()), row);
+                row.append(',').append(record.getTransactionType()).append(',');
+                Money.append(row, record.getTransactionAmount()).append(',');
+                if (record.getType().hasCounterparty()) {
+                    appendCsvField(row, record.getCounterpartyAccountNumber());
+                    row.append(',');
+                    appendCsvField(row, record.getCounterpartyName());
+                } else {
+                    row.append(',');
+                }
+                row.append('\n');
+                try {
+                    writer.append(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        return exported;
+    }
+    
+    public static int writeBinary(BankAccount account, long fromMillis, long toMillis, OutputStream out)
+            throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, BUFFER_BYTES));
+        data.writeInt(BINARY_MAGIC);
+        data.writeInt(BINARY_VERSION);
+        data.writeUTF(account.getAccountNumber());
+        data.writeLong(fromMillis);
+        data.writeLong(toMillis);
+        
+        int exported;
+        try {
+            exported = account.scanTransactions(fromMillis, toMillis, record -> {
+                try {
+                    data.writeByte(record.getType().getCode());
+                    data.writeLong(record.getTransactionTime());
+                    data.writeLong(record.getTransactionAmount());
+                    if (record.getType().hasCounterparty()) {
+                        data.writeUTF(record.getCounterpartyAccountNumber());
+                        data.writeUTF(record.getCounterpartyName());
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        
+        data.writeByte(-1);
+        data.writeInt(exported);
+        data.flush();
+        return exported;
+    }
+    
+    // Quotes the field only when it contains a separator, quote or line break
+    private static void appendCsvField(StringBuilder row, String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char ch = value.charAt(i);
+            quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+        }
+        if (!quote) {
+            row.append(value);
+            return;
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"') {
+                row.append('"');
+            }
+            row.append(ch);
+        }
+        row.append('"');
+    }
+    
+    private static String repeatChar(char ch, int count) {
+        return ConsoleRenderer.rule(ch, count);
+    }
+}
@@ -0,0 +1,352 @@
+/**
+ * Append-only write-ahead journal for ledger operations.
+ * Callers append into an in-memory buffer and then wait for their sequence
+ * number to become durable. A single flusher thread writes whatever has
+ * accumulated and calls force() once, so one fsync covers every entry that
+ * arrived while the previous fsync was in progress (group commit).
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+public class TransactionJournal implements Closeable {
+    public static final byte OPEN_ACCOUNT = 1;
+    public static final byte DEPOSIT = 2;
+    public static final byte WITHDRAWAL = 3;
+    public static final byte TRANSFER = 4;
+    public static final byte TRANSFER_BATCH = 5;
+    
+    private static final int HEADER_BYTES = 8; // payload length + CRC32
+    private static final int MAX_PAYLOAD_BYTES = 1 << 20;
+    
+    private final FileChannel channel;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition writesPending = lock.newCondition();
+    private final Condition batchDurable = lock.newCondition();
+    private final CRC32 checksum = new CRC32();
+    private final Thread flusher;
+    
+    private ByteBuffer activeBuffer = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer flushingBuffer = ByteBuffer.allocate(64 * 1024);
+    private long lastAppendedSequence;
+    private long lastDurableSequence;
+    private long endPosition;
+    private long entriesSinceMark;
+    private IOException failure;
+    private boolean closed;
+    
+    private TransactionJournal(FileChannel channel, long endPosition, long lastSequence) {
+        this.channel = channel;
+        this.endPosition = endPosition;
+        this.lastAppendedSequence = lastSequence;
+        this.lastDurableSequence = lastSequence;
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+    
+    // Replays every intact entry from startOffset, drops a torn tail, then opens for appending
+    public static TransactionJournal open(Path file, long startOffset, long lastSequence,
+                                          Consumer<JournalEntry> replay) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                               StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long position = Math.min(startOffset, channel.size());
+        channel.position(position);
+        
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        CRC32 crc = new CRC32();
+        while (true) {
+            int length;
+            int expectedCrc;
+            byte[] payload;
+            try {
+                length = in.readInt();
+                expectedCrc = in.readInt();
+                if (length <= 0 || length > MAX_PAYLOAD_BYTES) {
+                    break;
+                }
+                payload = new byte[length];
+                in.readFully(payload);
+            } catch (EOFException e) {
+                break;
+            }
+            
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != expectedCrc) {
+                break;
+            }
+            
+            JournalEntry entry = decode(ByteBuffer.wrap(payload));
+            replay.accept(entry);
+            lastSequence = entry.getSequence();
+            position += HEADER_BYTES + length;
+        }
+        
+        channel.truncate(position);
+        channel.position(position);
+        return new TransactionJournal(channel, position, lastSequence);
+    }
+    
+    // Buffers the entry and returns its sequence number; call awaitDurable before acknowledging
+    public long append(byte entryType, long timestamp, String accountNumber, String counterpartyAccountNumber,
+                       long amount, String pinCode, String accountHolderName) {
+        return appendEntry(entryType, timestamp, accountNumber, counterpartyAccountNumber, amount,
+                           pinCode, accountHolderName, null, null);
+    }
+    
+    // All legs share one entry and one CRC, so replay applies either every leg or none
+    public long appendTransferBatch(long timestamp, String sourceAccountNumber, String[] recipientAccountNumbers,
+                                    long[] amounts, long totalAmount) {
+        return appendEntry(TRANSFER_BATCH, timestamp, sourceAccountNumber, null, totalAmount,
+                           null, null, recipientAccountNumbers, amounts);
+    }
+    
+    private long appendEntry(byte entryType, long timestamp, String accountNumber, String counterpartyAccountNumber,
+                             long amount, String pinCode, String accountHolderName,
+                             String[] legAccountNumbers, long[] legAmounts) {
+        byte[] account = encode(accountNumber);
+        byte[] counterparty = encode(counterpartyAccountNumber);
+        byte[] pin = encode(pinCode);
+        byte[] name = encode(accountHolderName);
+        int payloadLength = 8 + 8 + 1 + 8 + stringBytes(account) + stringBytes(counterparty)
+                          + stringBytes(pin) + stringBytes(name);
+        
+        byte[][] legAccounts = null;
+        if (legAccountNumbers != null) {
+            legAccounts = new byte[legAccountNumbers.length][];
+            payloadLength += 4;
+            for (int i = 0; i < legAccounts.length; i++) {
+                legAccounts[i] = encode(legAccountNumbers[i]);
+                payloadLength += stringBytes(legAccounts[i]) + 8;
+            }
+        }
+        if (payloadLength > MAX_PAYLOAD_BYTES) {
+            throw new IllegalArgumentException("Journal entry too large: " + payloadLength + " bytes");
+        }
+        
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            // Refused before the caller applies the change, so memory never gets ahead of a broken journal
+            if (failure != null) {
+                throw new UncheckedIOException("Journal write failed", failure);
+            }
+            ensureCapacity(HEADER_BYTES + payloadLength);
+            
+            long sequence = ++lastAppendedSequence;
+            int start = activeBuffer.position();
+            activeBuffer.putInt(payloadLength);
+            activeBuffer.putInt(0); // CRC placeholder
+            activeBuffer.putLong(sequence);
+            activeBuffer.putLong(timestamp);
+            activeBuffer.put(entryType);
+            activeBuffer.putLong(amount);
+            putString(account);
+            putString(counterparty);
+            putString(pin);
+            putString(name);
+            if (legAccounts != null) {
+                activeBuffer.putInt(legAccounts.length);
+                for (int i = 0; i < legAccounts.length; i++) {
+                    putString(legAccounts[i]);
+                    activeBuffer.putLong(legAmounts[i]);
+                }
+            }
+            
+            checksum.reset();
+            checksum.update(activeBuffer.array(), start + HEADER_BYTES, payloadLength);
+            activeBuffer.putInt(start + 4, (int) checksum.getValue());
+            
+            endPosition += HEADER_BYTES + payloadLength;
+            entriesSinceMark++;
+            writesPending.signal();
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while (lastDurableSequence < sequence && failure == null) {
+                batchDurable.awaitUninterruptibly();
+            }
+            if (lastDurableSequence < sequence) {
+                throw new UncheckedIOException("Journal write failed", failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastAppendedSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public long getEntriesSinceMark() {
+        lock.lock();
+        try {
+            return entriesSinceMark;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Position and sequence of everything appended so far; used to tag a snapshot
+    public long[] mark() {
+        lock.lock();
+        try {
+            entriesSinceMark = 0;
+            return new long[] { endPosition, lastAppendedSequence };
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            writesPending.signal();
+        } finally {
+            lock.unlock();
+        }
+        
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+    
+    private void flushLoop() {
+        while (true) {
+            long batchSequence;
+            lock.lock();
+            try {
+                while (activeBuffer.position() == 0 && !closed) {
+                    writesPending.awaitUninterruptibly();
+                }
+                if (activeBuffer.position() == 0) {
+                    return;
+                }
+                ByteBuffer batch = activeBuffer;
+                activeBuffer = flushingBuffer;
+                flushingBuffer = batch;
+                batchSequence = lastAppendedSequence;
+            } finally {
+                lock.unlock();
+            }
+            
+            try {
+                flushingBuffer.flip();
+                while (flushingBuffer.hasRemaining()) {
+                    channel.write(flushingBuffer);
+                }
+                channel.force(false);
+                flushingBuffer.clear();
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    batchDurable.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+            
+            lock.lock();
+            try {
+                lastDurableSequence = batchSequence;
+                batchDurable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    
+    private void ensureCapacity(int bytes) {
+        if (activeBuffer.remaining() >= bytes) {
+            return;
+        }
+        int capacity = activeBuffer.capacity();
+        while (capacity - activeBuffer.position() < bytes) {
+            capacity *= 2;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(capacity);
+        activeBuffer.flip();
+        larger.put(activeBuffer);
+        activeBuffer = larger;
+    }
+    
+    private void putString(byte[] bytes) {
+        if (bytes == null) {
+            activeBuffer.putShort((short) -1);
+        } else {
+            activeBuffer.putShort((short) bytes.length);
+            activeBuffer.put(bytes);
+        }
+    }
+    
+    private static JournalEntry decode(ByteBuffer payload) {
+        long sequence = payload.getLong();
+        long timestamp = payload.getLong();
+        byte entryType = payload.get();
+        long amount = payload.getLong();
+        String account = getString(payload);
+        String counterparty = getString(payload);
+        String pin = getString(payload);
+        String name = getString(payload);
+        JournalEntry entry = new JournalEntry(entryType, sequence, timestamp, account, counterparty, amount, pin, name);
+        
+        if (entryType == TRANSFER_BATCH) {
+            int legCount = payload.getInt();
+            String[] legAccounts = new String[legCount];
+            long[] legAmounts = new long[legCount];
+            for (int i = 0; i < legCount; i++) {
+                legAccounts[i] = getString(payload);
+                legAmounts[i] = payload.getLong();
+            }
+            entry.setLegs(legAccounts, legAmounts);
+        }
+        return entry;
+    }
+    
+    private static String getString(ByteBuffer payload) {
+        short length = payload.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static int stringBytes(byte[] bytes) {
+        return 2 + (bytes == null ? 0 : bytes.length);
+    }
+}
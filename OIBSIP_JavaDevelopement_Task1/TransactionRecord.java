@@ -1,33 +1,77 @@
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 
 public class TransactionRecord {
-    private String transactionType;
-    private double transactionAmount;
-    private String transactionDetails;
-    private Date transactionDateTime;
+    // DateTimeFormatter is immutable and thread-safe, so one instance serves every record
+    private static final DateTimeFormatter DATE_TIME_FORMAT =
+        DateTimeFormatter.ofPattern("dd/MM/yy HH:mm").withZone(ZoneId.systemDefault());
     
-    public TransactionRecord(String type, double amount, String details) {
+    private TransactionType transactionType;
+    private long transactionAmount;
+    private long transactionTime;
+    private String counterpartyAccountNumber;
+    private String counterpartyName;
+    
+    public TransactionRecord(TransactionType type, long amount, long timestamp) {
+        this(type, amount, timestamp, null, null);
+    }
+    
+    public TransactionRecord(TransactionType type, long amount, long timestamp,
+                             String counterpartyAccountNumber, String counterpartyName) {
         this.transactionType = type;
         this.transactionAmount = amount;
-        this.transactionDetails = details;
-        this.transactionDateTime = new Date();
+        this.transactionTime = timestamp;
+        this.counterpartyAccountNumber = counterpartyAccountNumber;
+        this.counterpartyName = counterpartyName;
     }
     
-    public String getTransactionType() {
+    public TransactionType getType() {
         return transactionType;
     }
     
-    public double getTransactionAmount() {
+    public String getTransactionType() {
+        return transactionType.getLabel();
+    }
+    
+    public long getTransactionAmount() {
         return transactionAmount;
     }
     
+    public long getTransactionTime() {
+        return transactionTime;
+    }
+    
+    public String getCounterpartyAccountNumber() {
+        return counterpartyAccountNumber;
+    }
+    
+    public String getCounterpartyName() {
+        return counterpartyName;
+    }
+    
+    // Built only when a statement actually shows this record
     public String getTransactionDetails() {
-        return transactionDetails;
+        if (!transactionType.hasCounterparty()) {
+            return transactionType.getDetails();
+        }
+        return appendDetails(new StringBuilder(48)).toString();
+    }
+    
+    public StringBuilder appendDetails(StringBuilder sb) {
+        sb.append(transactionType.getDetails());
+        if (transactionType.hasCounterparty()) {
+            sb.append(counterpartyName).append(" (").append(counterpartyAccountNumber).append(')');
+        }
+        return sb;
     }
     
     public String getFormattedDateTime() {
-        SimpleDateFormat formatter = new SimpleDateFormat("dd/MM/yy HH:mm");
-        return formatter.format(transactionDateTime);
+        return DATE_TIME_FORMAT.format(Instant.ofEpochMilli(transactionTime));
+    }
+    
+    public StringBuilder appendFormattedDateTime(StringBuilder sb) {
+        DATE_TIME_FORMAT.formatTo(Instant.ofEpochMilli(transactionTime), sb);
+        return sb;
     }
 }
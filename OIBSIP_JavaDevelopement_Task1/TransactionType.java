@@ -0,0 +1,40 @@
+public enum TransactionType {
+    LOGIN("Login", "Account accessed successfully"),
+    LOGOUT("Logout", "Session ended"),
+    WITHDRAWAL("Withdrawal", "Cash withdrawn"),
+    DEPOSIT("Deposit", "Cash deposited"),
+    TRANSFER_OUT("Transfer Out", "To "),
+    TRANSFER_IN("Transfer In", "From ");
+    
+    private static final TransactionType[] VALUES = values();
+    
+    private final String label;
+    private final String details;
+    
+    TransactionType(String label, String details) {
+        this.label = label;
+        this.details = details;
+    }
+    
+    public String getLabel() {
+        return label;
+    }
+    
+    // Fixed text, or the prefix placed before the counterparty for transfers
+    public String getDetails() {
+        return details;
+    }
+    
+    public boolean hasCounterparty() {
+        return this == TRANSFER_OUT || this == TRANSFER_IN;
+    }
+    
+    // Stored as a single byte in history files
+    public byte getCode() {
+        return (byte) ordinal();
+    }
+    
+    public static TransactionType fromCode(byte code) {
+        return VALUES[code];
+    }
+}
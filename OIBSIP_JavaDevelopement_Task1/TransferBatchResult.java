@@ -0,0 +1,34 @@
+public class TransferBatchResult {
+    private LedgerResult result;
+    private int failedLeg;
+    private int legCount;
+    private long totalAmount;
+    
+    // failedLeg is the zero-based leg that was rejected, or -1 when the batch as a whole was
+    public TransferBatchResult(LedgerResult result, int failedLeg, int legCount, long totalAmount) {
+        this.result = result;
+        this.failedLeg = failedLeg;
+        this.legCount = legCount;
+        this.totalAmount = totalAmount;
+    }
+    
+    public LedgerResult getResult() {
+        return result;
+    }
+    
+    public boolean isSuccessful() {
+        return result == LedgerResult.SUCCESS;
+    }
+    
+    public int getFailedLeg() {
+        return failedLeg;
+    }
+    
+    public int getLegCount() {
+        return legCount;
+    }
+    
+    public long getTotalAmount() {
+        return totalAmount;
+    }
+}
@@ -0,0 +1,17 @@
+public class TransferLeg {
+    private String recipientAccountNumber;
+    private long amount;
+    
+    public TransferLeg(String recipientAccountNumber, long amount) {
+        this.recipientAccountNumber = recipientAccountNumber;
+        this.amount = amount;
+    }
+    
+    public String getRecipientAccountNumber() {
+        return recipientAccountNumber;
+    }
+    
+    public long getAmount() {
+        return amount;
+    }
+}
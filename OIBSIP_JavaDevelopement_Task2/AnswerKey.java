@@ -0,0 +1,83 @@
+/**
+ * Correct option of every question in a bank, by question id, with any
+ * corrections made after the exam. Options are numbered from 1 in the
+ * bank's original order, and 0 means the question has no partially
+ * correct option. Answers are read from the bank as they are asked for and
+ * only corrected questions are stored, so a key costs the same for any
+ * bank size.
+ */
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+public class AnswerKey {
+    private final QuestionBank bank;
+    // Corrected questions only: correct option << 8 | partially correct option
+    private final Map<Integer, Integer> corrections = new HashMap<>();
+    
+    private AnswerKey(QuestionBank bank) {
+        this.bank = bank;
+    }
+    
+    public static AnswerKey fromBank(QuestionBank bank) {
+        return new AnswerKey(bank);
+    }
+    
+    public int getCorrectOption(int questionId) {
+        Integer corrected = corrections.isEmpty() ? null : corrections.get(questionId);
+        return corrected == null ? bank.getCorrectAnswer(questionId) : corrected >> 8;
+    }
+    
+    public int getPartialOption(int questionId) {
+        Integer corrected = corrections.isEmpty() ? null : corrections.get(questionId);
+        return corrected == null ? 0 : corrected & 0xFF;
+    }
+    
+    // Not thread-safe; apply every correction before sharing the key
+    public void correct(int questionId, int correctOption, int partialOption) {
+        corrections.put(questionId, correctOption << 8 | partialOption);
+    }
+    
+    // One correction per line: "<question id> <correct option> [partially correct option]".
+    // Options are checked against the question's option count in the bank.
+    public int applyCorrections(Path file, QuestionBank bank) throws IOException {
+        int corrections = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\\s+");
+                try {
+                    if (parts.length < 2 || parts.length > 3) {
+                        throw new NumberFormatException();
+                    }
+                    int questionId = Integer.parseInt(parts[0]);
+                    int correctOption = Integer.parseInt(parts[1]);
+                    int partialOption = parts.length == 3 ? Integer.parseInt(parts[2]) : 0;
+                    if (questionId < 0 || questionId >= bank.getQuestionCount()) {
+                        throw new IllegalArgumentException("Line " + lineNumber + ": no question " + questionId);
+                    }
+                    int optionCount = bank.getOptionCount(questionId);
+                    if (correctOption < 1 || correctOption > optionCount ||
+                        partialOption < 0 || partialOption > optionCount) {
+                        throw new IllegalArgumentException("Line " + lineNumber + ": question " + questionId +
+                                                           " has options 1-" + optionCount);
+                    }
+                    correct(questionId, correctOption, partialOption);
+                    corrections++;
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Line " + lineNumber +
+                                                       ": expected \"question correct [partial]\"");
+                }
+            }
+        }
+        return corrections;
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Renders the answer key shown after an exam from cached, pre-encoded blocks.
+ * Every paper is different, but its questions are not: a question shown with
+ * a given option order is compiled once into one block per possible answer
+ * (not attempted, correct, or each wrong option), already encoded for the
+ * output. A candidate's answer key is then the cached blocks picked by their
+ * answers, copied into a single array that is written out in one go.
+ */
+
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class AnswerKeyRenderer {
+    // Compiled questions kept per output charset before the cache is started afresh
+    private static final int MAX_CACHED_QUESTIONS = 100_000;
+    private static final String NEWLINE = System.lineSeparator();
+    private static final Map<Charset, Templates> CACHE = new ConcurrentHashMap<>();
+    
+    // Everything that is the same across candidates, encoded for one charset
+    private static final class Templates {
+        final Charset charset;
+        final byte[] header;
+        final byte[] footer;
+        final Map<Integer, byte[]> numbers = new ConcurrentHashMap<>();
+        final Map<Long, byte[][]> questions = new ConcurrentHashMap<>();
+        
+        Templates(Charset charset) {
+            this.charset = charset;
+            header = (NEWLINE + ConsoleRenderer.rule('=', 70) + NEWLINE + "ANSWER KEY" + NEWLINE +
+                      ConsoleRenderer.rule('=', 70) + NEWLINE).getBytes(charset);
+            footer = (NEWLINE + ConsoleRenderer.rule('=', 70) + NEWLINE).getBytes(charset);
+        }
+        
+        byte[] number(int number) {
+            return numbers.computeIfAbsent(number, n -> (NEWLINE + "Question " + n).getBytes(charset));
+        }
+    }
+    
+    private AnswerKeyRenderer() {
+    }
+    
+    public static byte[] render(ExamPaper paper, List<Question> questions, byte[] answers, Charset charset) {
+        Templates templates = CACHE.computeIfAbsent(charset, Templates::new);
+        if (templates.questions.size() > MAX_CACHED_QUESTIONS) {
+            templates.questions.clear();
+        }
+        
+        byte[][] blocks = new byte[questions.size()][];
+        int length = templates.header.length + templates.footer.length;
+        for (int i = 0; i < questions.size(); i++) {
+            long key = ((long) paper.getQuestionId(i) << 32) | (paper.getOptionOrder(i) & 0xFFFFFFFFL);
+            Question question = questions.get(i);
+            blocks[i] = templates.questions.computeIfAbsent(key, k -> compile(question, charset))[answers[i]];
+            length += templates.number(i + 1).length + blocks[i].length;
+        }
+        
+        byte[] report = new byte[length];
+        int position = copy(templates.header, report, 0);
+        for (int i = 0; i < blocks.length; i++) {
+            position = copy(templates.number(i + 1), report, position);
+            position = copy(blocks[i], report, position);
+        }
+        copy(templates.footer, report, position);
+        return report;
+    }
+    
+    // Index 0 is the block for a question that was not attempted, index n for answer n
+    private static byte[][] compile(Question question, Charset charset) {
+        String text = ": " + question.getQuestionText() + NEWLINE;
+        int correctAnswer = question.getCorrectAnswer();
+        String correctLine = "Correct Answer: " + correctAnswer + ". " + question.getOption(correctAnswer) + NEWLINE;
+        
+        byte[][] variants = new byte[question.getOptionCount() + 1][];
+        variants[0] = (text + "Your Answer: Not attempted" + NEWLINE + correctLine).getBytes(charset);
+        for (int answer = 1; answer < variants.length; answer++) {
+            String yourAnswer = "Your Answer: " + answer + ". " + question.getOption(answer);
+            if (answer == correctAnswer) {
+                variants[answer] = (text + yourAnswer + " [CORRECT]" + NEWLINE).getBytes(charset);
+            } else {
+                variants[answer] = (text + yourAnswer + " [INCORRECT]" + NEWLINE + correctLine).getBytes(charset);
+            }
+        }
+        return variants;
+    }
+    
+    private static int copy(byte[] source, byte[] target, int position) {
+        System.arraycopy(source, 0, target, position, source.length);
+        return position + source.length;
+    }
+}
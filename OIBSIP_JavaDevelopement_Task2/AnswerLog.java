@@ -0,0 +1,305 @@
+/**
+ * Crash-safe autosave of one exam in progress.
+ * The log starts with the paper and time limit, followed by one fixed-size
+ * record per answered question. Recording an answer only copies eight bytes
+ * into the log's buffer; one shared flusher thread writes and forces every
+ * log with pending records, so a candidate never waits for the disk and one
+ * fsync covers every answer that arrived while the previous one ran.
+ * After a crash, recover reads back the paper, the answers and the exam
+ * time used so far. A torn final record is dropped. When a candidate
+ * disconnects, a suspend record notes when, and the time they spend away
+ * counts against their exam.
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.LinkedBlockingQueue;
+
+public class AnswerLog {
+    private static final int FORMAT_MAGIC = 0x45584141; // "EXAA"
+    private static final int FORMAT_VERSION = 1;
+    // magic, version, paper seed, time limit, question count
+    private static final int HEADER_BYTES = 28;
+    // question index, answer (0 = skipped), exam time used when answered in millis
+    private static final int RECORD_BYTES = 8;
+    // Question index of a suspend record, which is followed by the wall-clock time it was written
+    private static final int SUSPENDED = -1;
+    
+    private static final LinkedBlockingQueue<AnswerLog> DIRTY_LOGS = new LinkedBlockingQueue<>();
+    
+    static {
+        Thread flusher = new Thread(AnswerLog::flushLoop, "autosave-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+    
+    // What a crashed session had saved
+    public static class SavedExam {
+        private final ExamPaper paper;
+        private final byte[] answers;
+        private final int answeredCount;
+        private final long timeUsedMillis;
+        private final long timeLimitMillis;
+        private final long validBytes;
+        
+        SavedExam(ExamPaper paper, byte[] answers, int answeredCount, long timeUsedMillis,
+                  long timeLimitMillis, long validBytes) {
+            this.paper = paper;
+            this.answers = answers;
+            this.answeredCount = answeredCount;
+            this.timeUsedMillis = timeUsedMillis;
+            this.timeLimitMillis = timeLimitMillis;
+            this.validBytes = validBytes;
+        }
+        
+        public ExamPaper getPaper() {
+            return paper;
+        }
+        
+        public byte[] getAnswers() {
+            return answers;
+        }
+        
+        // Questions before this one had been answered or skipped
+        public int getAnsweredCount() {
+            return answeredCount;
+        }
+        
+        // Exam time used up to the last saved answer, plus the time since the candidate disconnected.
+        // Time the server spent down after a crash is not counted.
+        public long getTimeUsedMillis() {
+            return timeUsedMillis;
+        }
+        
+        public long getTimeLimitMillis() {
+            return timeLimitMillis;
+        }
+    }
+    
+    private final Path file;
+    private final long keepBytes; // existing bytes to keep when a recovered log is reopened
+    private ByteBuffer pending = ByteBuffer.allocate(256);
+    private ByteBuffer writing = ByteBuffer.allocate(256);
+    private boolean queued;
+    private boolean finished;
+    private boolean closed;
+    private boolean stopped; // the flusher has closed or deleted the file for good
+    private FileChannel channel; // only touched by the flusher thread
+    
+    private AnswerLog(Path file, long keepBytes) {
+        this.file = file;
+        this.keepBytes = keepBytes;
+    }
+    
+    public static AnswerLog begin(Path file, ExamPaper paper, long timeLimitMillis) {
+        AnswerLog log = new AnswerLog(file, 0);
+        synchronized (log) {
+            log.ensureCapacity(HEADER_BYTES + paper.size() * 8);
+            log.pending.putInt(FORMAT_MAGIC);
+            log.pending.putInt(FORMAT_VERSION);
+            log.pending.putLong(paper.getSeed());
+            log.pending.putLong(timeLimitMillis);
+            log.pending.putInt(paper.size());
+            for (int i = 0; i < paper.size(); i++) {
+                log.pending.putInt(paper.getQuestionId(i));
+                log.pending.putInt(paper.getOptionOrder(i));
+            }
+            log.schedule();
+        }
+        return log;
+    }
+    
+    // Carries on appending to a recovered log
+    public static AnswerLog resume(Path file, SavedExam saved) {
+        return new AnswerLog(file, saved.validBytes);
+    }
+    
+    // Returns null when there is no saved exam
+    public static SavedExam recover(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (bytes.length < HEADER_BYTES || in.getInt() != FORMAT_MAGIC || in.getInt() != FORMAT_VERSION) {
+            return null;
+        }
+        long seed = in.getLong();
+        long timeLimitMillis = in.getLong();
+        int size = in.getInt();
+        if (size <= 0 || in.remaining() < size * 8) {
+            return null;
+        }
+        int[] questionIds = new int[size];
+        int[] optionOrders = new int[size];
+        for (int i = 0; i < size; i++) {
+            questionIds[i] = in.getInt();
+            optionOrders[i] = in.getInt();
+        }
+        
+        byte[] answers = new byte[size];
+        int answeredCount = 0;
+        long timeUsedMillis = 0;
+        long suspendedAt = 0;
+        int validBytes = in.position();
+        while (in.remaining() >= RECORD_BYTES) {
+            int question = in.getShort();
+            int answer = in.get();
+            in.get();
+            int timeUsed = in.getInt();
+            if (question == SUSPENDED && in.remaining() >= 8) {
+                suspendedAt = in.getLong();
+            } else if (question >= 0 && question < size) {
+                answers[question] = (byte) answer;
+                answeredCount = Math.max(answeredCount, question + 1);
+                suspendedAt = 0;
+            } else {
+                break;
+            }
+            timeUsedMillis = Math.max(timeUsedMillis, timeUsed);
+            validBytes = in.position();
+        }
+        if (suspendedAt != 0) {
+            timeUsedMillis += Math.max(0, System.currentTimeMillis() - suspendedAt);
+        }
+        return new SavedExam(new ExamPaper(seed, questionIds, optionOrders), answers, answeredCount,
+                             timeUsedMillis, timeLimitMillis, validBytes);
+    }
+    
+    public synchronized void recordAnswer(int question, int answer, long timeUsedMillis) {
+        if (finished || closed) {
+            return;
+        }
+        ensureCapacity(RECORD_BYTES);
+        pending.putShort((short) question);
+        pending.put((byte) answer);
+        pending.put((byte) 0);
+        pending.putInt((int) Math.min(Integer.MAX_VALUE, timeUsedMillis));
+        schedule();
+    }
+    
+    // The candidate disconnected; their clock keeps running from here until they resume
+    public synchronized void recordSuspend(long timeUsedMillis) {
+        if (finished || closed) {
+            return;
+        }
+        ensureCapacity(RECORD_BYTES + 8);
+        pending.putShort((short) SUSPENDED);
+        pending.put((byte) 0);
+        pending.put((byte) 0);
+        pending.putInt((int) Math.min(Integer.MAX_VALUE, timeUsedMillis));
+        pending.putLong(System.currentTimeMillis());
+        schedule();
+    }
+    
+    // The exam was submitted; returns once the flusher has deleted the log
+    public synchronized void finish() {
+        finished = true;
+        schedule();
+        awaitStopped();
+    }
+    
+    // The exam stopped without being submitted; returns once everything pending is on disk and the
+    // file is closed, so the log can be recovered straight away
+    public synchronized void close() {
+        closed = true;
+        schedule();
+        awaitStopped();
+    }
+    
+    private void awaitStopped() {
+        boolean interrupted = false;
+        while (!stopped) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void schedule() {
+        if (!queued) {
+            queued = true;
+            DIRTY_LOGS.add(this);
+        }
+    }
+    
+    private void ensureCapacity(int bytes) {
+        if (pending.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+    }
+    
+    private static void flushLoop() {
+        List<AnswerLog> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(DIRTY_LOGS.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            // Everything queued while the last batch was being forced goes out together
+            DIRTY_LOGS.drainTo(batch);
+            for (AnswerLog log : batch) {
+                log.flush();
+            }
+            batch.clear();
+        }
+    }
+    
+    private void flush() {
+        boolean delete;
+        boolean close;
+        synchronized (this) {
+            ByteBuffer swap = writing;
+            writing = pending;
+            pending = swap;
+            queued = false;
+            delete = finished;
+            close = closed;
+        }
+        
+        try {
+            if (delete) {
+                if (channel != null) {
+                    channel.close();
+                }
+                Files.deleteIfExists(file);
+                return;
+            }
+            if (channel == null) {
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                channel.truncate(keepBytes);
+                channel.position(keepBytes);
+            }
+            writing.flip();
+            while (writing.hasRemaining()) {
+                channel.write(writing);
+            }
+            channel.force(false);
+            if (close) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            // Autosave is best effort; the exam itself carries on in memory
+        } finally {
+            writing.clear();
+            if (delete || close) {
+                synchronized (this) {
+                    stopped = true;
+                    notifyAll();
+                }
+            }
+        }
+    }
+}
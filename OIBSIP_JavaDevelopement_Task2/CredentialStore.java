@@ -0,0 +1,87 @@
+/**
+ * Candidate accounts, shared by every session.
+ * Password hashing is deliberately slow, so it runs on a small pool with one
+ * thread per core instead of on the session threads: when a whole hall logs
+ * in at once, the hashes queue for the cores rather than thousands of
+ * sessions competing for them. Profiles are immutable and replaced
+ * atomically in a concurrent map, so updates from one session are safely
+ * visible to all others and a password change cannot be lost to a
+ * concurrent profile edit.
+ */
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class CredentialStore {
+    private final Map<String, UserProfile> profiles = new ConcurrentHashMap<>();
+    private final ExecutorService verifiers;
+    // Unknown usernames are checked against this, so they take as long to reject as wrong passwords
+    private final PasswordCredential unknownUser = PasswordCredential.create("");
+    
+    public CredentialStore(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        verifiers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "password-verify-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    // Returns false if the username is taken
+    public boolean register(String username, String password, String fullName, String email) {
+        return profiles.putIfAbsent(username, new UserProfile(username, PasswordCredential.create(password),
+                                                              fullName, email)) == null;
+    }
+    
+    public UserProfile get(String username) {
+        return profiles.get(username);
+    }
+    
+    // Returns the profile, or null if the username or password is wrong
+    public UserProfile authenticate(String username, String password) {
+        return onVerifier(() -> {
+            UserProfile profile = profiles.get(username);
+            if (profile == null) {
+                unknownUser.matches(password);
+                return null;
+            }
+            return profile.getCredential().matches(password) ? profile : null;
+        });
+    }
+    
+    // Sets a new password for a profile returned by authenticate. Returns the updated profile, or null
+    // if the password was changed elsewhere in the meantime.
+    public UserProfile changePassword(UserProfile verified, String newPassword) {
+        PasswordCredential replacement = onVerifier(() -> PasswordCredential.create(newPassword));
+        PasswordCredential old = verified.getCredential();
+        UserProfile updated = profiles.computeIfPresent(verified.getUsername(), (name, current) ->
+            current.getCredential() == old ? current.withCredential(replacement) : current);
+        return updated != null && updated.getCredential() == replacement ? updated : null;
+    }
+    
+    public UserProfile updateFullName(String username, String fullName) {
+        return profiles.computeIfPresent(username, (name, current) -> current.withFullName(fullName));
+    }
+    
+    public UserProfile updateEmail(String username, String email) {
+        return profiles.computeIfPresent(username, (name, current) -> current.withEmail(email));
+    }
+    
+    // Runs a hashing task on the pool; the calling session just waits for the result
+    private <T> T onVerifier(Callable<T> task) {
+        Future<T> result = verifiers.submit(task);
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checking a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,15 @@
+public enum Difficulty {
+    EASY,
+    MEDIUM,
+    HARD;
+    
+    private static final Difficulty[] VALUES = values();
+    
+    public static Difficulty fromCode(int code) {
+        return VALUES[code];
+    }
+    
+    public static Difficulty parse(String text) {
+        return valueOf(text.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,301 @@
+/**
+ * Item statistics over every submitted exam.
+ * Usage: java ExamSystem --analytics [questions to list]
+ * Submissions are kept column by column in a SubmissionBatch, and each one
+ * updates a handful of running sums per question as it arrives, so every
+ * statistic is available at any time without scanning the submissions:
+ * - difficulty: the share of candidates who answered the question correctly
+ * - discrimination: the correlation between answering it correctly and the
+ *   score on the rest of the paper (near 0 or negative means it is suspect)
+ * - distractor frequency: how often each original option was chosen
+ * - the distribution of paper scores, one mark per correct answer
+ * Sums are only kept for questions that have been served, so the cost does
+ * not grow with the size of the bank.
+ */
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+public class ExamAnalytics {
+    private final AnswerKey key;
+    private SubmissionBatch sessions;
+    private int[] scores = new int[16];
+    private long[] scoreCounts = new long[8];
+    private long scoreSum;
+    private boolean loaded = true;
+    
+    // By question id, for questions that appear in at least one submission
+    private final Map<Integer, QuestionStats> questions = new HashMap<>();
+    
+    private static final class QuestionStats {
+        int seen;
+        int correct;
+        int skipped;
+        final int[] optionPicks = new int[ExamPaper.MAX_OPTIONS]; // by original option - 1
+        long scoreSum;
+        long scoreSquareSum;
+        long correctScoreSum;
+    }
+    
+    public ExamAnalytics(QuestionBank bank) {
+        this(bank, new SubmissionBatch());
+    }
+    
+    private ExamAnalytics(QuestionBank bank, SubmissionBatch sessions) {
+        this.key = AnswerKey.fromBank(bank);
+        this.sessions = sessions;
+    }
+    
+    // Replays a submissions file, as if each exam had just been submitted
+    public static ExamAnalytics load(QuestionBank bank, Path submissionsFile) throws IOException {
+        ExamAnalytics analytics = new ExamAnalytics(bank, SubmissionBatch.readFrom(submissionsFile));
+        analytics.replay();
+        return analytics;
+    }
+    
+    // Like load, but replays on a background thread so startup does not wait for past submissions;
+    // every method waits until the replay is done
+    public static ExamAnalytics loadInBackground(QuestionBank bank, Path submissionsFile) {
+        ExamAnalytics analytics = new ExamAnalytics(bank);
+        analytics.loaded = false;
+        Thread loader = new Thread(() -> {
+            SubmissionBatch past;
+            try {
+                past = SubmissionBatch.readFrom(submissionsFile);
+            } catch (IOException e) {
+                System.out.println("Warning: past submissions could not be read: " + e.getMessage());
+                past = new SubmissionBatch();
+            }
+            synchronized (analytics) {
+                analytics.sessions = past;
+                analytics.replay();
+                analytics.loaded = true;
+                analytics.notifyAll();
+            }
+        }, "analytics-loader");
+        loader.setDaemon(true);
+        loader.start();
+        return analytics;
+    }
+    
+    private void replay() {
+        for (int s = 0; s < sessions.size(); s++) {
+            update(s);
+        }
+    }
+    
+    private void awaitLoaded() {
+        boolean interrupted = false;
+        while (!loaded) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    // Returns the paper's score
+    public synchronized int record(String username, ExamPaper paper, byte[] answers) {
+        awaitLoaded();
+        sessions.add(username, paper, answers);
+        return update(sessions.size() - 1);
+    }
+    
+    private int update(int submission) {
+        int[] questionIds = sessions.getQuestionIds();
+        int[] optionOrders = sessions.getOptionOrders();
+        byte[] answers = sessions.getAnswers();
+        int start = sessions.getStart(submission);
+        int end = sessions.getStart(submission + 1);
+        
+        int score = 0;
+        for (int i = start; i < end; i++) {
+            if (answers[i] != 0 && ExamPaper.originalOption(optionOrders[i], answers[i]) ==
+                                   key.getCorrectOption(questionIds[i])) {
+                score++;
+            }
+        }
+        
+        for (int i = start; i < end; i++) {
+            int id = questionIds[i];
+            QuestionStats stats = questions.computeIfAbsent(id, unused -> new QuestionStats());
+            stats.seen++;
+            stats.scoreSum += score;
+            stats.scoreSquareSum += (long) score * score;
+            if (answers[i] == 0) {
+                stats.skipped++;
+                continue;
+            }
+            int chosen = ExamPaper.originalOption(optionOrders[i], answers[i]);
+            stats.optionPicks[chosen - 1]++;
+            if (chosen == key.getCorrectOption(id)) {
+                stats.correct++;
+                stats.correctScoreSum += score;
+            }
+        }
+        
+        if (submission == scores.length) {
+            scores = Arrays.copyOf(scores, scores.length * 2);
+        }
+        scores[submission] = score;
+        if (score >= scoreCounts.length) {
+            scoreCounts = Arrays.copyOf(scoreCounts, Math.max(scoreCounts.length * 2, score + 1));
+        }
+        scoreCounts[score]++;
+        scoreSum += score;
+        return score;
+    }
+    
+    public synchronized int getSessionCount() {
+        awaitLoaded();
+        return sessions.size();
+    }
+    
+    public synchronized int getScore(int submission) {
+        awaitLoaded();
+        return scores[submission];
+    }
+    
+    public synchronized double getMeanScore() {
+        awaitLoaded();
+        return sessions.size() == 0 ? 0 : (double) scoreSum / sessions.size();
+    }
+    
+    // Number of papers with each score, from 0 up to the highest score seen
+    public synchronized long[] getScoreDistribution() {
+        awaitLoaded();
+        int highest = scoreCounts.length - 1;
+        while (highest > 0 && scoreCounts[highest] == 0) {
+            highest--;
+        }
+        return Arrays.copyOf(scoreCounts, highest + 1);
+    }
+    
+    // Share of papers that scored lower than the given score
+    public synchronized double getPercentile(int score) {
+        awaitLoaded();
+        long below = 0;
+        for (int s = 0; s < Math.min(score, scoreCounts.length); s++) {
+            below += scoreCounts[s];
+        }
+        return sessions.size() == 0 ? 0 : (double) below / sessions.size();
+    }
+    
+    // Ids of the questions that appear in at least one submission, in no particular order
+    public synchronized List<Integer> getAskedQuestions() {
+        awaitLoaded();
+        return new ArrayList<>(questions.keySet());
+    }
+    
+    public synchronized int getTimesSeen(int questionId) {
+        awaitLoaded();
+        QuestionStats stats = questions.get(questionId);
+        return stats == null ? 0 : stats.seen;
+    }
+    
+    // Share of candidates given the question who answered it correctly; NaN if nobody has seen it
+    public synchronized double getDifficulty(int questionId) {
+        awaitLoaded();
+        QuestionStats stats = questions.get(questionId);
+        return stats == null ? Double.NaN : (double) stats.correct / stats.seen;
+    }
+    
+    public synchronized double getSkipRate(int questionId) {
+        awaitLoaded();
+        QuestionStats stats = questions.get(questionId);
+        return stats == null ? Double.NaN : (double) stats.skipped / stats.seen;
+    }
+    
+    // Share of candidates given the question who chose this original option (from 1)
+    public synchronized double getOptionFrequency(int questionId, int option) {
+        awaitLoaded();
+        QuestionStats stats = questions.get(questionId);
+        return stats == null ? Double.NaN : (double) stats.optionPicks[option - 1] / stats.seen;
+    }
+    
+    // Point-biserial correlation between answering correctly and the score on the rest of the
+    // paper, so the question does not count towards its own criterion. NaN when undefined.
+    public synchronized double getDiscrimination(int questionId) {
+        awaitLoaded();
+        QuestionStats stats = questions.get(questionId);
+        if (stats == null) {
+            return Double.NaN;
+        }
+        double n = stats.seen;
+        double right = stats.correct;
+        if (right == 0 || right == n) {
+            return Double.NaN;
+        }
+        // Rest score = score - 1 for those who were right, score otherwise
+        double restSum = stats.scoreSum - right;
+        double restSquareSum = stats.scoreSquareSum - 2.0 * stats.correctScoreSum + right;
+        double mean = restSum / n;
+        double deviation = Math.sqrt(Math.max(0, restSquareSum / n - mean * mean));
+        if (deviation == 0) {
+            return Double.NaN;
+        }
+        double rightMean = (stats.correctScoreSum - right) / right;
+        double wrongMean = (stats.scoreSum - stats.correctScoreSum) / (n - right);
+        double p = right / n;
+        return (rightMean - wrongMean) / deviation * Math.sqrt(p * (1 - p));
+    }
+    
+    public static void run(QuestionBank bank, Path submissionsFile, int listed) {
+        System.out.println("\n" + repeatChar('=', 55));
+        System.out.println("EXAM ANALYTICS");
+        System.out.println(repeatChar('=', 55));
+        
+        long startTime = System.nanoTime();
+        ExamAnalytics analytics;
+        try {
+            analytics = load(bank, submissionsFile);
+        } catch (IOException e) {
+            System.out.println("Could not read submissions: " + e.getMessage());
+            return;
+        }
+        long loadedTime = System.nanoTime();
+        
+        // Questions nobody has been given yet have nothing to report
+        List<Integer> asked = analytics.getAskedQuestions();
+        asked.sort(Comparator.comparingDouble(analytics::getDifficulty));
+        long reportTime = System.nanoTime();
+        
+        System.out.println("Submissions: " + analytics.getSessionCount() + " | Questions asked: " + asked.size());
+        System.out.printf("Mean score: %.2f%n", analytics.getMeanScore());
+        System.out.println("\nScore distribution:");
+        long[] distribution = analytics.getScoreDistribution();
+        long mostCommon = Math.max(1, Arrays.stream(distribution).max().orElse(1));
+        for (int score = 0; score < distribution.length; score++) {
+            System.out.printf("%3d | %-30s %d%n", score, repeatChar('#', (int) (distribution[score] * 30 / mostCommon)),
+                              distribution[score]);
+        }
+        
+        System.out.println("\nHardest questions:");
+        System.out.println("   id  seen   correct  discr.  skipped  options chosen (original order)");
+        for (int i = 0; i < Math.min(listed, asked.size()); i++) {
+            int id = asked.get(i);
+            StringBuilder options = new StringBuilder();
+            for (int option = 1; option <= bank.getOptionCount(id); option++) {
+                String mark = option == bank.getCorrectAnswer(id) ? "*" : "";
+                options.append(String.format(" %d%s:%.0f%%", option, mark,
+                                             analytics.getOptionFrequency(id, option) * 100));
+            }
+            System.out.printf("%5d %5d %8.1f%% %7.2f %7.1f%% %s%n", id, analytics.getTimesSeen(id),
+                              analytics.getDifficulty(id) * 100, analytics.getDiscrimination(id),
+                              analytics.getSkipRate(id) * 100, options);
+        }
+        
+        System.out.printf("%nLoad time: %.1f ms | Report time: %.1f ms%n",
+                          (loadedTime - startTime) / 1_000_000.0, (reportTime - loadedTime) / 1_000_000.0);
+        System.out.println(repeatChar('=', 55));
+    }
+    
+    private static String repeatChar(char ch, int count) {
+        return ConsoleRenderer.rule(ch, count);
+    }
+}
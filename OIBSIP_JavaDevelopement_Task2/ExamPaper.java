@@ -0,0 +1,60 @@
+/**
+ * One candidate's exam paper: the bank ids of its questions, in the order
+ * they are asked, and the order each question's options are shown in.
+ * An option order packs the original option index (from 0) shown at each
+ * position into four bits, position 0 in the lowest bits. The same seed
+ * always regenerates the same paper from the same bank and settings.
+ */
+public class ExamPaper {
+    // An option order packs eight four-bit positions into an int
+    static final int MAX_OPTIONS = 8;
+    // Answer logs store question numbers as shorts
+    static final int MAX_QUESTIONS = Short.MAX_VALUE;
+    
+    private final long seed;
+    private final int[] questionIds;
+    private final int[] optionOrders;
+    
+    public ExamPaper(long seed, int[] questionIds, int[] optionOrders) {
+        this.seed = seed;
+        this.questionIds = questionIds;
+        this.optionOrders = optionOrders;
+    }
+    
+    public long getSeed() {
+        return seed;
+    }
+    
+    public int size() {
+        return questionIds.length;
+    }
+    
+    public int getQuestionId(int index) {
+        return questionIds[index];
+    }
+    
+    public int getOptionOrder(int index) {
+        return optionOrders[index];
+    }
+    
+    // The original option number (from 1) shown as option number `shown` of a question
+    public static int originalOption(int optionOrder, int shown) {
+        return ((optionOrder >>> ((shown - 1) * 4)) & 0xF) + 1;
+    }
+    
+    // Reads the question from the bank with its options in this paper's order
+    public Question getQuestion(QuestionBank bank, int index) {
+        Question original = bank.getQuestion(questionIds[index]);
+        int order = optionOrders[index];
+        String[] options = new String[original.getOptionCount()];
+        int correctAnswer = 0;
+        for (int shown = 1; shown <= options.length; shown++) {
+            int number = originalOption(order, shown);
+            options[shown - 1] = original.getOption(number);
+            if (number == original.getCorrectAnswer()) {
+                correctAnswer = shown;
+            }
+        }
+        return new Question(original.getQuestionText(), options, correctAnswer);
+    }
+}
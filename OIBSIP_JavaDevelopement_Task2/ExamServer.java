@@ -0,0 +1,92 @@
+/**
+ * Multi-candidate exam server.
+ * Usage: java ExamSystem --server <port>, then connect with e.g. "nc localhost <port>".
+ * Every connection gets its own ExamSystem session with its own login,
+ * paper, timer and answers; only the question bank and user accounts are
+ * shared. On the Java 17 target every connection holds one platform thread
+ * from a cached pool for as long as it stays open, so thread count and
+ * memory grow with the size of the hall. Run on Java 21 or later, the same
+ * code puts sessions on virtual threads instead.
+ * While serving, a proctor line with the hall's progress is printed every
+ * few seconds (-Dexam.dashboardSeconds, 0 to turn it off) whenever it changes.
+ */
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ExamServer {
+    private static final int ACCEPT_BACKLOG = 4096;
+    private static final long DASHBOARD_MILLIS = Long.getLong("exam.dashboardSeconds", 10) * 1000;
+    
+    private final int port;
+    
+    public ExamServer(int port) {
+        this.port = port;
+    }
+    
+    public void serve() throws IOException {
+        ExecutorService sessions = newSessionExecutor();
+        if (DASHBOARD_MILLIS > 0) {
+            ProctorFeed.subscribe();
+            Thread dashboard = new Thread(ExamServer::showDashboard, "proctor-dashboard");
+            dashboard.setDaemon(true);
+            dashboard.start();
+        }
+        try (ServerSocket server = new ServerSocket(port, ACCEPT_BACKLOG)) {
+            System.out.println("Exam server listening on port " + port);
+            while (true) {
+                Socket client = server.accept();
+                sessions.execute(() -> handleSession(client));
+            }
+        } finally {
+            sessions.shutdownNow();
+        }
+    }
+    
+    private void handleSession(Socket client) {
+        try (Socket socket = client) {
+            PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), false, "UTF-8");
+            new ExamSystem(socket.getInputStream(), out, StandardCharsets.UTF_8).run();
+        } catch (IOException e) {
+            // Candidate disconnected; nothing else to clean up
+        }
+    }
+    
+    private static void showDashboard() {
+        long shownEvents = -1;
+        while (true) {
+            try {
+                Thread.sleep(DASHBOARD_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            ProctorFeed.HallStats stats = ProctorFeed.getStats();
+            if (stats.getEvents() == shownEvents && stats.getInProgress() == 0) {
+                continue;
+            }
+            shownEvents = stats.getEvents();
+            long remainingSeconds = stats.getAverageRemainingMillis() / 1000;
+            System.out.printf("[proctor] in progress: %d (avg %.1f answered, avg %dm %ds left) | " +
+                              "submitted: %d (%d timed out)%s%n",
+                              stats.getInProgress(), stats.getAverageAnswered(), remainingSeconds / 60,
+                              remainingSeconds % 60, stats.getSubmitted(), stats.getTimedOut(),
+                              stats.getDroppedEvents() > 0 ? " | dropped events: " + stats.getDroppedEvents() : "");
+        }
+    }
+    
+    static ExecutorService newSessionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            System.out.println("Sessions run on virtual threads.");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Sessions use one platform thread per connection (virtual threads need Java 21).");
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
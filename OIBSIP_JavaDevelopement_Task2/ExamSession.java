@@ -1,21 +1,39 @@
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ExamSession {
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+    
+    private final int id = NEXT_ID.incrementAndGet();
     private String username;
     private Date startTime;
     private Date endTime;
     private int score;
-    private Map<Integer, Integer> answers;
+    // Option number chosen for each question of the paper, 0 when not attempted
+    private byte[] answers;
+    private ExamPaper paper;
+    private AnswerLog autosave;
+    private boolean suspended;
+    private String saveFailure;
     
     public ExamSession(String username) {
         this.username = username;
         this.startTime = new Date();
         this.score = 0;
-        this.answers = new HashMap<>();
+        this.answers = new byte[0];
+    }
+    
+    // Identifies the exam in the proctor feed
+    public String getUsername() {
+        return username;
+    }
+    
+    public int getId() {
+        return id;
     }
     
     public void recordAnswer(int questionNumber, int answer) {
-        answers.put(questionNumber, answer);
+        answers[questionNumber] = (byte) answer;
     }
     
     public void incrementScore() {
@@ -26,15 +44,60 @@ public class ExamSession {
         this.endTime = new Date();
     }
     
+    public boolean isSubmitted() {
+        return endTime != null;
+    }
+    
+    // The candidate left mid-exam; it stays saved to be resumed rather than submitted
+    public void suspend() {
+        suspended = true;
+    }
+    
+    public boolean isSuspended() {
+        return suspended;
+    }
+    
     public int getScore() {
         return score;
     }
     
     public int getAttemptedCount() {
-        return answers.size();
+        int attempted = 0;
+        for (byte answer : answers) {
+            if (answer != 0) {
+                attempted++;
+            }
+        }
+        return attempted;
     }
     
-    public Map<Integer, Integer> getAnswers() {
+    public void setPaper(ExamPaper paper) {
+        this.paper = paper;
+        this.answers = new byte[paper.size()];
+    }
+    
+    public ExamPaper getPaper() {
+        return paper;
+    }
+    
+    public void setAutosave(AnswerLog autosave) {
+        this.autosave = autosave;
+    }
+    
+    public AnswerLog getAutosave() {
+        return autosave;
+    }
+    
+    public byte[] getAnswers() {
         return answers;
     }
+    
+    // Set when the submission could not be stored; shown to the candidate with the results
+    public void setSaveFailure(String saveFailure) {
+        this.saveFailure = saveFailure;
+    }
+    
+    public String getSaveFailure() {
+        return saveFailure;
+    }
 }
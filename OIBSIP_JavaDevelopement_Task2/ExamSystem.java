@@ -5,48 +5,177 @@
  * Created for: OIBSIP Java Development Internship
  */
 
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
 
 public class ExamSystem {
-    private static Scanner input = new Scanner(System.in);
-    private static Map<String, UserProfile> userDatabase = new HashMap<>();
-    private static UserProfile currentUser = null;
-    private static ExamSession activeExam = null;
+    private static final String DATA_DIRECTORY = "exam-data";
+    private static final String QUESTION_BANK_FILE = "question-bank.qbank";
+    private static final String SUBMISSIONS_FILE = "submissions.dat";
+    private static final String AUTOSAVE_DIRECTORY = "autosave";
+    private static final String EXAM_SUBJECT = "Java Programming Fundamentals";
+    // Questions per paper for each difficulty: easy, medium, hard
+    private static final int[] DIFFICULTY_MIX = {2, 2, 1};
+    // Papers are regenerated from this seed; -Dexam.topics=a,b asks for a question on each topic
+    private static final long EXAM_SEED = Long.getLong("exam.seed", 20240601L);
+    private static final String[] COVER_TAGS = topicsProperty();
+    private static final long TIME_LIMIT_MILLIS = Long.getLong("exam.timeLimitSeconds", 5 * 60) * 1000;
+    
+    // Shared by every session
+    private static CredentialStore credentials = new CredentialStore(Runtime.getRuntime().availableProcessors());
+    private static QuestionBank questionBank;
+    private static int paperSize; // 0 when the bank cannot fill a paper
+    private static ExamAnalytics analytics;
+    // Candidates with an exam running in some session; one exam per candidate at a time
+    private static Set<String> examsInProgress = ConcurrentHashMap.newKeySet();
+    
+    // Per-session state; the console and every server connection get their own instance
+    private final Scanner input;
+    private final PrintStream out;
+    private final Charset outputCharset;
+    private UserProfile currentUser = null;
+    private ExamSession activeExam = null;
+    private PaperGenerator paperGenerator;
+    private boolean sessionActive = true;
+    
+    public ExamSystem(InputStream in, PrintStream out) {
+        this(in, out, Charset.defaultCharset());
+    }
+    
+    // outputCharset must match the encoding of out; pre-encoded screens are written to it as bytes
+    public ExamSystem(InputStream in, PrintStream out, Charset outputCharset) {
+        this.input = new Scanner(in);
+        this.out = out;
+        this.outputCharset = outputCharset;
+    }
     
     public static void main(String[] args) {
+        Path bankFile = Paths.get(DATA_DIRECTORY, QUESTION_BANK_FILE);
+        if (args.length == 2 && args[0].equals("--build-bank")) {
+            buildQuestionBank(Paths.get(args[1]), bankFile);
+            return;
+        }
+        
+        try {
+            questionBank = loadQuestionBank(bankFile);
+        } catch (IOException e) {
+            System.out.println("Error: could not load question bank: " + e.getMessage());
+            System.exit(1);
+        }
+        
+        if (args.length >= 2 && args.length <= 3 && args[0].equals("--generate-papers")) {
+            PaperBatch.run(questionBank, EXAM_SUBJECT, DIFFICULTY_MIX, COVER_TAGS, EXAM_SEED,
+                           Integer.parseInt(args[1]), args.length == 3 ? Paths.get(args[2]) : null);
+            return;
+        }
+        
+        if ((args.length == 2 || args.length == 3) && args[0].equals("--regrade")) {
+            BulkGrader.run(questionBank, Paths.get(DATA_DIRECTORY, SUBMISSIONS_FILE), args[1],
+                           args.length == 3 ? Paths.get(args[2]) : null,
+                           Paths.get(DATA_DIRECTORY, "scores-" + args[1] + ".csv"));
+            return;
+        }
+        
+        if ((args.length == 1 || args.length == 2) && args[0].equals("--analytics")) {
+            ExamAnalytics.run(questionBank, Paths.get(DATA_DIRECTORY, SUBMISSIONS_FILE),
+                              args.length == 2 ? Integer.parseInt(args[1]) : 10);
+            return;
+        }
+        
+        try {
+            paperSize = new PaperGenerator(questionBank, EXAM_SUBJECT, DIFFICULTY_MIX, COVER_TAGS).getPaperSize();
+        } catch (IllegalArgumentException e) {
+            System.out.println("Warning: exams are unavailable: " + e.getMessage());
+        }
+        // Past submissions are replayed in the background; a submission made before that finishes waits for it
+        analytics = ExamAnalytics.loadInBackground(questionBank, Paths.get(DATA_DIRECTORY, SUBMISSIONS_FILE));
         initializeSampleUsers();
+        
+        if (args.length == 2 && args[0].equals("--server")) {
+            try {
+                new ExamServer(Integer.parseInt(args[1])).serve();
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid port: " + args[1]);
+            } catch (IOException e) {
+                System.out.println("Server stopped: " + e.getMessage());
+            }
+            return;
+        }
+        
+        new ExamSystem(System.in, ConsoleRenderer.screen()).run();
+    }
+    
+    public void run() {
         displayWelcomeBanner();
         
-        while (true) {
-            if (currentUser == null) {
-                handleLoginProcess();
-            } else {
-                displayMainMenu();
+        try {
+            while (sessionActive) {
+                if (currentUser == null) {
+                    handleLoginProcess();
+                } else {
+                    displayMainMenu();
+                }
             }
+        } catch (NoSuchElementException e) {
+            // Input closed (terminal EOF or client disconnect); end the session quietly
+        }
+        out.flush();
+    }
+    
+    // Writes the built-in questions to a new bank the first time the system runs
+    private static QuestionBank loadQuestionBank(Path bankFile) throws IOException {
+        if (!Files.exists(bankFile)) {
+            Files.createDirectories(bankFile.getParent());
+            createSampleQuestions().writeTo(bankFile);
+        }
+        return QuestionBank.open(bankFile);
+    }
+    
+    private static String[] topicsProperty() {
+        String topics = System.getProperty("exam.topics", "").trim();
+        return topics.isEmpty() ? new String[0] : topics.split("\\s*,\\s*");
+    }
+    
+    private static void buildQuestionBank(Path source, Path bankFile) {
+        long startTime = System.nanoTime();
+        try {
+            QuestionBankWriter writer = QuestionBankWriter.readTsv(source);
+            Files.createDirectories(bankFile.getParent());
+            writer.writeTo(bankFile);
+            System.out.println("Question bank built: " + writer.size() + " questions -> " + bankFile);
+            System.out.printf("Build time: %.1f ms%n", (System.nanoTime() - startTime) / 1_000_000.0);
+        } catch (IOException e) {
+            System.out.println("Could not build question bank: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
         }
     }
     
     private static void initializeSampleUsers() {
-        userDatabase.put("student1", new UserProfile("student1", "pass123", "Aravind Kumar", "aravind@email.com"));
-        userDatabase.put("student2", new UserProfile("student2", "pass456", "Priya Sharma", "priya@email.com"));
+        credentials.register("student1", "pass123", "Aravind Kumar", "aravind@email.com");
+        credentials.register("student2", "pass456", "Priya Sharma", "priya@email.com");
     }
     
-    private static void displayWelcomeBanner() {
-        System.out.println("\n" + repeatChar('=', 55));
-        System.out.println("       WELCOME TO ONLINE EXAMINATION SYSTEM");
-        System.out.println("           Learn, Practice, Excel");
-        System.out.println(repeatChar('=', 55));
+    private void displayWelcomeBanner() {
+        out.println("\n" + repeatChar('=', 55));
+        out.println("       WELCOME TO ONLINE EXAMINATION SYSTEM");
+        out.println("           Learn, Practice, Excel");
+        out.println(repeatChar('=', 55));
     }
     
-    private static void handleLoginProcess() {
-        System.out.println("\nPlease authenticate to continue:");
-        System.out.println("1. Login to your account");
-        System.out.println("2. View sample credentials");
-        System.out.println("3. Exit application");
-        System.out.print("\nEnter your choice: ");
+    private void handleLoginProcess() {
+        out.println("\nPlease authenticate to continue:");
+        out.println("1. Login to your account");
+        out.println("2. View sample credentials");
+        out.println("3. Exit application");
+        out.print("\nEnter your choice: ");
         
         try {
-            int option = Integer.parseInt(input.nextLine().trim());
+            int option = Integer.parseInt(readLine().trim());
             
             switch (option) {
                 case 1:
@@ -59,61 +188,57 @@ public class ExamSystem {
                     exitApplication();
                     break;
                 default:
-                    System.out.println("Invalid choice. Please select 1, 2, or 3.");
+                    out.println("Invalid choice. Please select 1, 2, or 3.");
             }
         } catch (NumberFormatException e) {
-            System.out.println("Invalid input. Please enter a number.");
+            out.println("Invalid input. Please enter a number.");
         }
     }
     
-    private static void performLogin() {
-        System.out.println("\n" + repeatChar('-', 40));
-        System.out.println("           USER LOGIN");
-        System.out.println(repeatChar('-', 40));
-        
-        System.out.print("Enter Username: ");
-        String username = input.nextLine().trim();
-        
-        System.out.print("Enter Password: ");
-        String password = input.nextLine().trim();
-        
-        if (validateCredentials(username, password)) {
-            currentUser = userDatabase.get(username);
-            System.out.println("\nLogin successful!");
-            System.out.println("Welcome, " + currentUser.getFullName());
+    private void performLogin() {
+        out.println("\n" + repeatChar('-', 40));
+        out.println("           USER LOGIN");
+        out.println(repeatChar('-', 40));
+        
+        out.print("Enter Username: ");
+        String username = readLine().trim();
+        
+        out.print("Enter Password: ");
+        String password = readLine().trim();
+        
+        UserProfile user = credentials.authenticate(username, password);
+        if (user != null) {
+            currentUser = user;
+            out.println("\nLogin successful!");
+            out.println("Welcome, " + currentUser.getFullName());
         } else {
-            System.out.println("\nLogin failed!");
-            System.out.println("Invalid username or password. Please try again.");
+            out.println("\nLogin failed!");
+            out.println("Invalid username or password. Please try again.");
         }
     }
     
-    private static boolean validateCredentials(String username, String password) {
-        UserProfile user = userDatabase.get(username);
-        return user != null && user.getPassword().equals(password);
-    }
-    
-    private static void displaySampleCredentials() {
-        System.out.println("\n" + repeatChar('=', 50));
-        System.out.println("         SAMPLE USER CREDENTIALS");
-        System.out.println(repeatChar('=', 50));
-        System.out.println("Username: student1  |  Password: pass123");
-        System.out.println("Username: student2  |  Password: pass456");
-        System.out.println(repeatChar('=', 50));
+    private void displaySampleCredentials() {
+        out.println("\n" + repeatChar('=', 50));
+        out.println("         SAMPLE USER CREDENTIALS");
+        out.println(repeatChar('=', 50));
+        out.println("Username: student1  |  Password: pass123");
+        out.println("Username: student2  |  Password: pass456");
+        out.println(repeatChar('=', 50));
     }
     
-    private static void displayMainMenu() {
-        System.out.println("\n" + repeatChar('=', 50));
-        System.out.println("EXAMINATION SYSTEM MENU");
-        System.out.println("User: " + currentUser.getUsername() + 
+    private void displayMainMenu() {
+        out.println("\n" + repeatChar('=', 50));
+        out.println("EXAMINATION SYSTEM MENU");
+        out.println("User: " + currentUser.getUsername() + 
                          " | " + currentUser.getFullName());
-        System.out.println(repeatChar('=', 50));
-        System.out.println("1. Update Profile and Password");
-        System.out.println("2. Start Examination");
-        System.out.println("3. Logout");
-        System.out.print("\nSelect an option: ");
+        out.println(repeatChar('=', 50));
+        out.println("1. Update Profile and Password");
+        out.println("2. Start Examination");
+        out.println("3. Logout");
+        out.print("\nSelect an option: ");
         
         try {
-            int choice = Integer.parseInt(input.nextLine().trim());
+            int choice = Integer.parseInt(readLine().trim());
             
             switch (choice) {
                 case 1:
@@ -126,25 +251,25 @@ public class ExamSystem {
                     performLogout();
                     break;
                 default:
-                    System.out.println("Invalid option. Please select 1-3.");
+                    out.println("Invalid option. Please select 1-3.");
             }
         } catch (NumberFormatException e) {
-            System.out.println("Invalid input. Please enter a number.");
+            out.println("Invalid input. Please enter a number.");
         }
     }
     
-    private static void updateProfileMenu() {
-        System.out.println("\n" + repeatChar('-', 40));
-        System.out.println("         UPDATE PROFILE");
-        System.out.println(repeatChar('-', 40));
-        System.out.println("1. Update Full Name");
-        System.out.println("2. Update Email");
-        System.out.println("3. Change Password");
-        System.out.println("4. Back to Main Menu");
-        System.out.print("\nSelect an option: ");
+    private void updateProfileMenu() {
+        out.println("\n" + repeatChar('-', 40));
+        out.println("         UPDATE PROFILE");
+        out.println(repeatChar('-', 40));
+        out.println("1. Update Full Name");
+        out.println("2. Update Email");
+        out.println("3. Change Password");
+        out.println("4. Back to Main Menu");
+        out.print("\nSelect an option: ");
         
         try {
-            int choice = Integer.parseInt(input.nextLine().trim());
+            int choice = Integer.parseInt(readLine().trim());
             
             switch (choice) {
                 case 1:
@@ -159,266 +284,422 @@ public class ExamSystem {
                 case 4:
                     return;
                 default:
-                    System.out.println("Invalid option. Please select 1-4.");
+                    out.println("Invalid option. Please select 1-4.");
             }
         } catch (NumberFormatException e) {
-            System.out.println("Invalid input. Please enter a number.");
+            out.println("Invalid input. Please enter a number.");
         }
     }
     
-    private static void updateFullName() {
-        System.out.print("\nCurrent Name: " + currentUser.getFullName());
-        System.out.print("\nEnter new full name: ");
-        String newName = input.nextLine().trim();
+    private void updateFullName() {
+        out.print("\nCurrent Name: " + currentUser.getFullName());
+        out.print("\nEnter new full name: ");
+        String newName = readLine().trim();
         
         if (newName.isEmpty()) {
-            System.out.println("Name cannot be empty!");
+            out.println("Name cannot be empty!");
             return;
         }
         
-        currentUser.setFullName(newName);
-        System.out.println("\nProfile updated successfully!");
-        System.out.println("New name: " + currentUser.getFullName());
+        currentUser = credentials.updateFullName(currentUser.getUsername(), newName);
+        out.println("\nProfile updated successfully!");
+        out.println("New name: " + currentUser.getFullName());
     }
     
-    private static void updateEmail() {
-        System.out.print("\nCurrent Email: " + currentUser.getEmail());
-        System.out.print("\nEnter new email: ");
-        String newEmail = input.nextLine().trim();
+    private void updateEmail() {
+        out.print("\nCurrent Email: " + currentUser.getEmail());
+        out.print("\nEnter new email: ");
+        String newEmail = readLine().trim();
         
         if (!newEmail.contains("@")) {
-            System.out.println("Invalid email format!");
+            out.println("Invalid email format!");
             return;
         }
         
-        currentUser.setEmail(newEmail);
-        System.out.println("\nEmail updated successfully!");
-        System.out.println("New email: " + currentUser.getEmail());
+        currentUser = credentials.updateEmail(currentUser.getUsername(), newEmail);
+        out.println("\nEmail updated successfully!");
+        out.println("New email: " + currentUser.getEmail());
     }
     
-    private static void changePassword() {
-        System.out.print("\nEnter current password: ");
-        String currentPassword = input.nextLine().trim();
+    private void changePassword() {
+        out.print("\nEnter current password: ");
+        String currentPassword = readLine().trim();
         
-        if (!currentPassword.equals(currentUser.getPassword())) {
-            System.out.println("Incorrect current password!");
+        UserProfile verified = credentials.authenticate(currentUser.getUsername(), currentPassword);
+        if (verified == null) {
+            out.println("Incorrect current password!");
             return;
         }
         
-        System.out.print("Enter new password: ");
-        String newPassword = input.nextLine().trim();
+        out.print("Enter new password: ");
+        String newPassword = readLine().trim();
         
         if (newPassword.length() < 6) {
-            System.out.println("Password must be at least 6 characters!");
+            out.println("Password must be at least 6 characters!");
             return;
         }
         
-        System.out.print("Confirm new password: ");
-        String confirmPassword = input.nextLine().trim();
+        out.print("Confirm new password: ");
+        String confirmPassword = readLine().trim();
         
         if (!newPassword.equals(confirmPassword)) {
-            System.out.println("Passwords do not match!");
+            out.println("Passwords do not match!");
             return;
         }
         
-        currentUser.setPassword(newPassword);
-        System.out.println("\nPassword changed successfully!");
-        System.out.println("Please use your new password for next login.");
+        UserProfile updated = credentials.changePassword(verified, newPassword);
+        if (updated == null) {
+            out.println("\nYour password was changed in another session. Please try again.");
+            return;
+        }
+        currentUser = updated;
+        out.println("\nPassword changed successfully!");
+        out.println("Please use your new password for next login.");
+    }
+    
+    private void startExamination() {
+        String username = currentUser.getUsername();
+        if (!examsInProgress.add(username)) {
+            out.println("\nYou already have an exam in progress in another session.");
+            return;
+        }
+        try {
+            startOrResumeExamination();
+        } finally {
+            examsInProgress.remove(username);
+        }
     }
     
-    private static void startExamination() {
-        System.out.println("\n" + repeatChar('=', 50));
-        System.out.println("STARTING EXAMINATION");
-        System.out.println(repeatChar('=', 50));
-        System.out.println("Subject: Java Programming Fundamentals");
-        System.out.println("Total Questions: 5");
-        System.out.println("Time Limit: 5 minutes");
-        System.out.println("Each question carries 1 mark");
-        System.out.println(repeatChar('=', 50));
+    private void startOrResumeExamination() {
+        AnswerLog.SavedExam saved = recoverSavedExam();
+        if (saved != null) {
+            resumeExamination(saved);
+            return;
+        }
         
-        System.out.print("\nAre you ready to start? (yes/no): ");
-        String response = input.nextLine().trim().toLowerCase();
+        out.println("\n" + repeatChar('=', 50));
+        out.println("STARTING EXAMINATION");
+        out.println(repeatChar('=', 50));
+        out.println("Subject: " + EXAM_SUBJECT);
+        out.println("Total Questions: " + paperSize);
+        out.println("Time Limit: " + describeTimeLimit());
+        out.println("Each question carries 1 mark");
+        out.println(repeatChar('=', 50));
+        
+        out.print("\nAre you ready to start? (yes/no): ");
+        String response = readLine().trim().toLowerCase();
         
         if (!response.equals("yes")) {
-            System.out.println("Exam cancelled. Returning to main menu.");
+            out.println("Exam cancelled. Returning to main menu.");
             return;
         }
         
         activeExam = new ExamSession(currentUser.getUsername());
-        conductExam();
+        List<Question> questions = generateQuestions();
+        if (questions.isEmpty()) {
+            out.println("No questions are available for " + EXAM_SUBJECT + ".");
+            activeExam = null;
+            return;
+        }
+        activeExam.setAutosave(AnswerLog.begin(autosaveFile(), activeExam.getPaper(), TIME_LIMIT_MILLIS));
+        conductExam(questions, 0, 0, TIME_LIMIT_MILLIS);
     }
     
-    private static void conductExam() {
-        System.out.println("\n" + repeatChar('=', 60));
-        System.out.println("EXAMINATION IN PROGRESS");
-        System.out.println("Timer: 5 minutes | Auto-submit enabled");
-        System.out.println(repeatChar('=', 60));
+    // Picks an exam interrupted by a crash or restart back up where its autosave left off
+    private void resumeExamination(AnswerLog.SavedExam saved) {
+        ExamPaper paper = saved.getPaper();
+        activeExam = new ExamSession(currentUser.getUsername());
+        activeExam.setPaper(paper);
+        List<Question> questions = new ArrayList<>(paper.size());
+        for (int i = 0; i < paper.size(); i++) {
+            questions.add(paper.getQuestion(questionBank, i));
+            int answer = saved.getAnswers()[i];
+            if (answer != 0) {
+                activeExam.recordAnswer(i, answer);
+                if (answer == questions.get(i).getCorrectAnswer()) {
+                    activeExam.incrementScore();
+                }
+            }
+        }
+        activeExam.setAutosave(AnswerLog.resume(autosaveFile(), saved));
         
-        List<Question> questions = generateQuestions();
-        long startTime = System.currentTimeMillis();
-        long timeLimit = 5 * 60 * 1000; // 5 minutes in milliseconds
+        out.println("\n" + repeatChar('=', 50));
+        out.println("RESUMING EXAMINATION");
+        out.println(repeatChar('=', 50));
+        out.println("Your unfinished exam was saved and is being restored.");
+        out.println("Questions Answered: " + saved.getAnsweredCount() + " of " + paper.size());
+        out.println(repeatChar('=', 50));
         
-        for (int i = 0; i < questions.size(); i++) {
-            long elapsedTime = System.currentTimeMillis() - startTime;
-            long remainingTime = timeLimit - elapsedTime;
-            
-            if (remainingTime <= 0) {
-                System.out.println("\n" + repeatChar('=', 50));
-                System.out.println("TIME'S UP! Auto-submitting your exam...");
-                System.out.println(repeatChar('=', 50));
-                break;
+        conductExam(questions, saved.getAnsweredCount(), saved.getTimeUsedMillis(), saved.getTimeLimitMillis());
+    }
+    
+    private AnswerLog.SavedExam recoverSavedExam() {
+        try {
+            Files.createDirectories(autosaveFile().getParent());
+            return AnswerLog.recover(autosaveFile());
+        } catch (IOException e) {
+            out.println("Warning: saved exam could not be read: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    private Path autosaveFile() {
+        return Paths.get(DATA_DIRECTORY, AUTOSAVE_DIRECTORY, currentUser.getUsername() + ".log");
+    }
+    
+    private void conductExam(List<Question> questions, int firstQuestion, long timeUsedMillis, long timeLimitMillis) {
+        ExamSession exam = activeExam;
+        AnswerLog autosave = exam.getAutosave();
+        out.println("\n" + repeatChar('=', 60));
+        out.println("EXAMINATION IN PROGRESS");
+        out.println("Timer: " + describeTimeLimit() + " | Auto-submit enabled");
+        out.printf("Paper ID: %016x%n", exam.getPaper().getSeed());
+        out.println(repeatChar('=', 60));
+        
+        long remainingMillis = timeLimitMillis - timeUsedMillis;
+        if (remainingMillis <= 0) {
+            out.println("Your time ran out before the exam could be resumed.");
+            synchronized (this) {
+                recordSubmission(exam);
             }
-            
-            displayQuestion(questions.get(i), i + 1, remainingTime);
-            
-            System.out.print("\nYour answer (1-4) or 0 to skip: ");
-            try {
-                int answer = Integer.parseInt(input.nextLine().trim());
+            showResults(exam, questions);
+            return;
+        }
+        long deadline = System.currentTimeMillis() + remainingMillis;
+        // One timer entry per exam; it submits at the deadline even while the candidate is still typing
+        ScheduledFuture<?> timeout = ExamTimer.schedule(() -> autoSubmit(exam), remainingMillis);
+        ProctorFeed.publish(exam.getId(), ProctorFeed.STARTED, remainingMillis / 1000);
+        if (firstQuestion > 0) {
+            ProctorFeed.publish(exam.getId(), ProctorFeed.ANSWERED, firstQuestion);
+        }
+        
+        // Answers are shared with the timer, so they are only touched while holding the session lock. Only this
+        // thread writes to the candidate, and never while holding the lock, so a client that stops reading
+        // cannot keep the timer from submitting.
+        try {
+            for (int i = firstQuestion; i < questions.size(); i++) {
+                synchronized (this) {
+                    if (exam.isSubmitted()) {
+                        break;
+                    }
+                }
+                displayQuestion(questions.get(i), i + 1, questions.size(), deadline - System.currentTimeMillis());
+                out.print("\nYour answer (1-" + questions.get(i).getOptionCount() + ") or 0 to skip: ");
+                out.flush();
                 
-                if (answer >= 1 && answer <= 4) {
-                    activeExam.recordAnswer(i, answer);
-                    if (answer == questions.get(i).getCorrectAnswer()) {
-                        activeExam.incrementScore();
+                String line = input.nextLine();
+                
+                boolean invalid = false;
+                synchronized (this) {
+                    if (exam.isSubmitted()) {
+                        // Typed after the deadline; the timer has already submitted the exam
+                        break;
+                    }
+                    int saved = 0;
+                    try {
+                        int answer = Integer.parseInt(line.trim());
+                        
+                        if (answer >= 1 && answer <= questions.get(i).getOptionCount()) {
+                            exam.recordAnswer(i, answer);
+                            saved = answer;
+                            if (answer == questions.get(i).getCorrectAnswer()) {
+                                exam.incrementScore();
+                            }
+                        }
+                    } catch (NumberFormatException e) {
+                        invalid = true;
                     }
+                    // Skips are saved too, so a resumed exam continues after this question
+                    autosave.recordAnswer(i, saved, timeLimitMillis - (deadline - System.currentTimeMillis()));
+                    ProctorFeed.publish(exam.getId(), ProctorFeed.ANSWERED, i + 1);
+                }
+                if (invalid) {
+                    out.println("Invalid input. Question skipped.");
+                }
+            }
+        } catch (NoSuchElementException e) {
+            // Disconnected mid-exam: keep the autosave, so logging back in resumes the exam. The suspend
+            // record lets the clock keep running meanwhile; the exam is submitted on resume if time is up.
+            timeout.cancel(false);
+            synchronized (this) {
+                if (!exam.isSubmitted()) {
+                    exam.suspend();
+                    autosave.recordSuspend(timeLimitMillis - (deadline - System.currentTimeMillis()));
+                    autosave.close();
+                    ProctorFeed.publish(exam.getId(), ProctorFeed.SUSPENDED, 0);
                 }
-            } catch (NumberFormatException e) {
-                System.out.println("Invalid input. Question skipped.");
             }
+            throw e;
         }
         
-        submitExam(questions);
+        timeout.cancel(false);
+        boolean timedOut;
+        synchronized (this) {
+            timedOut = exam.isSubmitted();
+            if (!timedOut) {
+                recordSubmission(exam);
+            }
+        }
+        if (timedOut) {
+            out.println("\n" + repeatChar('=', 50));
+            out.println("TIME'S UP! Your exam was submitted automatically at the deadline.");
+            out.println("Answers typed after the deadline were not counted.");
+            out.println(repeatChar('=', 50));
+        }
+        showResults(exam, questions);
+    }
+    
+    // Runs on a timer worker, usually while the session thread is blocked waiting for an answer. It only stores
+    // the submission; the session thread shows the results once the candidate's next line arrives.
+    private void autoSubmit(ExamSession exam) {
+        synchronized (this) {
+            if (exam.isSubmitted() || exam.isSuspended()) {
+                return;
+            }
+            ProctorFeed.publish(exam.getId(), ProctorFeed.TIMED_OUT, 0);
+            recordSubmission(exam);
+        }
+    }
+    
+    private static String describeTimeLimit() {
+        long seconds = TIME_LIMIT_MILLIS / 1000;
+        return seconds % 60 == 0 ? (seconds / 60) + " minutes" : seconds + " seconds";
     }
     
-    private static void displayQuestion(Question q, int number, long remainingTime) {
+    private void displayQuestion(Question q, int number, int total, long remainingTime) {
         int minutes = (int) (remainingTime / 60000);
         int seconds = (int) ((remainingTime % 60000) / 1000);
         
-        System.out.println("\n" + repeatChar('-', 60));
-        System.out.println("Question " + number + " of 5 | Time Remaining: " + 
+        out.println("\n" + repeatChar('-', 60));
+        out.println("Question " + number + " of " + total + " | Time Remaining: " + 
                          minutes + "m " + seconds + "s");
-        System.out.println(repeatChar('-', 60));
-        System.out.println(q.getQuestionText());
-        System.out.println("\n1. " + q.getOption1());
-        System.out.println("2. " + q.getOption2());
-        System.out.println("3. " + q.getOption3());
-        System.out.println("4. " + q.getOption4());
+        out.println(repeatChar('-', 60));
+        out.println(q.getQuestionText());
+        out.println();
+        for (int option = 1; option <= q.getOptionCount(); option++) {
+            out.println(option + ". " + q.getOption(option));
+        }
+    }
+    
+    // Each candidate gets their own paper; only its questions are read from the bank
+    private List<Question> generateQuestions() {
+        if (paperSize == 0) {
+            return new ArrayList<>();
+        }
+        if (paperGenerator == null) {
+            paperGenerator = new PaperGenerator(questionBank, EXAM_SUBJECT, DIFFICULTY_MIX, COVER_TAGS);
+        }
+        long seed = PaperGenerator.candidateSeed(EXAM_SEED, currentUser.getUsername().hashCode());
+        ExamPaper paper = paperGenerator.generate(seed);
+        activeExam.setPaper(paper);
+        
+        List<Question> questions = new ArrayList<>(paper.size());
+        for (int i = 0; i < paper.size(); i++) {
+            questions.add(paper.getQuestion(questionBank, i));
+        }
+        return questions;
     }
     
-    private static List<Question> generateQuestions() {
-        List<Question> questions = new ArrayList<>();
+    private static QuestionBankWriter createSampleQuestions() {
+        QuestionBankWriter writer = new QuestionBankWriter();
         
-        questions.add(new Question(
+        writer.add(EXAM_SUBJECT, Difficulty.EASY, Arrays.asList("data types"),
             "What is the size of int data type in Java?",
-            "16 bits", "32 bits", "64 bits", "8 bits", 2
-        ));
+            new String[] {"16 bits", "32 bits", "64 bits", "8 bits"}, 2
+        );
         
-        questions.add(new Question(
+        writer.add(EXAM_SUBJECT, Difficulty.EASY, Arrays.asList("oop"),
             "Which keyword is used to inherit a class in Java?",
-            "implements", "extends", "inherits", "super", 2
-        ));
+            new String[] {"implements", "extends", "inherits", "super"}, 2
+        );
         
-        questions.add(new Question(
+        writer.add(EXAM_SUBJECT, Difficulty.EASY, Arrays.asList("data types"),
             "What is the default value of boolean variable in Java?",
-            "true", "false", "null", "0", 2
-        ));
+            new String[] {"true", "false", "null", "0"}, 2
+        );
         
-        questions.add(new Question(
+        writer.add(EXAM_SUBJECT, Difficulty.EASY, Arrays.asList("basics"),
             "Which method is the entry point of a Java program?",
-            "start()", "main()", "run()", "execute()", 2
-        ));
+            new String[] {"start()", "main()", "run()", "execute()"}, 2
+        );
         
-        questions.add(new Question(
+        writer.add(EXAM_SUBJECT, Difficulty.EASY, Arrays.asList("oop"),
             "What is the parent class of all classes in Java?",
-            "System", "String", "Object", "Class", 3
-        ));
+            new String[] {"System", "String", "Object", "Class"}, 3
+        );
         
-        return questions;
+        return writer;
     }
     
-    private static void submitExam(List<Question> questions) {
-        activeExam.setEndTime();
-        
-        System.out.println("\n" + repeatChar('=', 50));
-        System.out.println("EXAMINATION COMPLETED");
-        System.out.println(repeatChar('=', 50));
-        System.out.println("Your exam has been submitted successfully!");
-        System.out.println("Total Questions: " + questions.size());
-        System.out.println("Questions Attempted: " + activeExam.getAttemptedCount());
-        System.out.println("Correct Answers: " + activeExam.getScore());
-        System.out.println("Score: " + activeExam.getScore() + "/" + questions.size());
-        System.out.println(repeatChar('=', 50));
-        
-        displayCorrectAnswers(questions);
-        
-        System.out.println("\nThank you for taking the exam!");
-        activeExam = null;
+    // Stores the submission without writing to the candidate; called with the session lock held
+    private void recordSubmission(ExamSession exam) {
+        exam.setEndTime();
+        ProctorFeed.publish(exam.getId(), ProctorFeed.SUBMITTED, 0);
+        try {
+            SubmissionBatch.append(Paths.get(DATA_DIRECTORY, SUBMISSIONS_FILE), exam.getUsername(),
+                                   exam.getPaper(), exam.getAnswers());
+            // Only dropped once the submission is stored, so a failed append can still be resumed
+            exam.getAutosave().finish();
+        } catch (IOException e) {
+            exam.setSaveFailure(e.getMessage());
+        }
+        analytics.record(exam.getUsername(), exam.getPaper(), exam.getAnswers());
     }
     
-    private static void displayCorrectAnswers(List<Question> questions) {
-        System.out.println("\n" + repeatChar('=', 70));
-        System.out.println("ANSWER KEY");
-        System.out.println(repeatChar('=', 70));
-        
-        Map<Integer, Integer> userAnswers = activeExam.getAnswers();
-        
-        for (int i = 0; i < questions.size(); i++) {
-            Question q = questions.get(i);
-            int correctAnswer = q.getCorrectAnswer();
-            Integer userAnswer = userAnswers.get(i);
-            
-            System.out.println("\nQuestion " + (i + 1) + ": " + q.getQuestionText());
-            
-            if (userAnswer != null) {
-                System.out.print("Your Answer: " + userAnswer + ". " + getOptionText(q, userAnswer));
-                if (userAnswer == correctAnswer) {
-                    System.out.println(" [CORRECT]");
-                } else {
-                    System.out.println(" [INCORRECT]");
-                    System.out.println("Correct Answer: " + correctAnswer + ". " + getOptionText(q, correctAnswer));
-                }
-            } else {
-                System.out.println("Your Answer: Not attempted");
-                System.out.println("Correct Answer: " + correctAnswer + ". " + getOptionText(q, correctAnswer));
-            }
+    private void showResults(ExamSession exam, List<Question> questions) {
+        if (exam.getSaveFailure() != null) {
+            out.println("Warning: your answers could not be saved for regrading: " + exam.getSaveFailure());
         }
-        System.out.println("\n" + repeatChar('=', 70));
+        out.println("\n" + repeatChar('=', 50));
+        out.println("EXAMINATION COMPLETED");
+        out.println(repeatChar('=', 50));
+        out.println("Your exam has been submitted successfully!");
+        out.println("Total Questions: " + questions.size());
+        out.println("Questions Attempted: " + exam.getAttemptedCount());
+        out.println("Correct Answers: " + exam.getScore());
+        out.println("Score: " + exam.getScore() + "/" + questions.size());
+        out.printf("You scored higher than %.0f%% of candidates so far.%n",
+                   analytics.getPercentile(exam.getScore()) * 100);
+        out.println(repeatChar('=', 50));
+        
+        displayCorrectAnswers(exam, questions);
+        
+        out.println("\nThank you for taking the exam!");
+        activeExam = null;
     }
     
-    private static String getOptionText(Question q, int optionNumber) {
-        switch (optionNumber) {
-            case 1: return q.getOption1();
-            case 2: return q.getOption2();
-            case 3: return q.getOption3();
-            case 4: return q.getOption4();
-            default: return "";
-        }
+    private void displayCorrectAnswers(ExamSession exam, List<Question> questions) {
+        byte[] answerKey = AnswerKeyRenderer.render(exam.getPaper(), questions, exam.getAnswers(), outputCharset);
+        out.write(answerKey, 0, answerKey.length);
     }
     
-    private static void performLogout() {
-        System.out.println("\nLogging out...");
-        System.out.println("Thank you for using our examination system, " + 
+    private void performLogout() {
+        out.println("\nLogging out...");
+        out.println("Thank you for using our examination system, " + 
                          currentUser.getFullName() + "!");
         
         currentUser = null;
         activeExam = null;
         
-        System.out.println("\n" + repeatChar('=', 50));
-        System.out.println("Session terminated successfully.");
-        System.out.println("Have a great day!");
-        System.out.println(repeatChar('=', 50));
+        out.println("\n" + repeatChar('=', 50));
+        out.println("Session terminated successfully.");
+        out.println("Have a great day!");
+        out.println(repeatChar('=', 50));
+    }
+    
+    private void exitApplication() {
+        out.println("\nThank you for using our Online Examination System!");
+        out.println("Goodbye!");
+        sessionActive = false;
     }
     
-    private static void exitApplication() {
-        System.out.println("\nThank you for using our Online Examination System!");
-        System.out.println("Goodbye!");
-        System.exit(0);
+    // Prompts are printed without a newline, so push them out before blocking on input
+    private String readLine() {
+        out.flush();
+        return input.nextLine();
     }
     
     private static String repeatChar(char ch, int count) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < count; i++) {
-            sb.append(ch);
-        }
-        return sb.toString();
+        return ConsoleRenderer.rule(ch, count);
     }
 }
@@ -0,0 +1,40 @@
+/**
+ * Exam deadlines for every session, kept by one shared timer thread.
+ * A running exam holds a single scheduled entry, which is cancelled when the
+ * candidate submits early. When a deadline passes, its task is handed to a
+ * worker pool with one thread per core, so storing a submission does not
+ * hold up the timer, and a whole hall reaching its deadline together queues
+ * for the workers instead of starting a thread per exam. Tasks never write to
+ * the candidate; the session thread shows the results, so a client that has
+ * stopped reading cannot tie up a worker.
+ */
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class ExamTimer {
+    private static final ScheduledThreadPoolExecutor SCHEDULER = new ScheduledThreadPoolExecutor(1, task -> {
+        Thread thread = new Thread(task, "exam-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final AtomicInteger WORKER_COUNT = new AtomicInteger();
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(
+        Runtime.getRuntime().availableProcessors(), task -> {
+            Thread thread = new Thread(task, "exam-timeout-" + WORKER_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    
+    static {
+        // Cancelled deadlines leave the queue straight away instead of at their due time
+        SCHEDULER.setRemoveOnCancelPolicy(true);
+    }
+    
+    private ExamTimer() {
+    }
+    
+    public static ScheduledFuture<?> schedule(Runnable task, long delayMillis) {
+        return SCHEDULER.schedule(() -> WORKERS.execute(task), delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
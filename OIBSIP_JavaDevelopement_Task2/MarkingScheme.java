@@ -0,0 +1,59 @@
+/**
+ * Marks awarded for each kind of answer when grading.
+ * A partially correct answer is an option the answer key accepts for part
+ * of the credit; questions without one only have right and wrong answers.
+ */
+public final class MarkingScheme {
+    // One mark per correct answer, as shown to candidates
+    public static final MarkingScheme STANDARD = new MarkingScheme("standard", 1, 0, 0, 0);
+    // A quarter mark lost for every wrong answer; skipping costs nothing
+    public static final MarkingScheme NEGATIVE = new MarkingScheme("negative", 1, 0, -0.25, 0);
+    // Half a mark for an answer the key accepts as partially correct
+    public static final MarkingScheme PARTIAL = new MarkingScheme("partial", 1, 0.5, 0, 0);
+    
+    private static final MarkingScheme[] SCHEMES = {STANDARD, NEGATIVE, PARTIAL};
+    
+    private final String name;
+    private final double correct;
+    private final double partial;
+    private final double wrong;
+    private final double skipped;
+    
+    public MarkingScheme(String name, double correct, double partial, double wrong, double skipped) {
+        this.name = name;
+        this.correct = correct;
+        this.partial = partial;
+        this.wrong = wrong;
+        this.skipped = skipped;
+    }
+    
+    // Returns null for an unknown name
+    public static MarkingScheme forName(String name) {
+        for (MarkingScheme scheme : SCHEMES) {
+            if (scheme.name.equalsIgnoreCase(name)) {
+                return scheme;
+            }
+        }
+        return null;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public double getCorrect() {
+        return correct;
+    }
+    
+    public double getPartial() {
+        return partial;
+    }
+    
+    public double getWrong() {
+        return wrong;
+    }
+    
+    public double getSkipped() {
+        return skipped;
+    }
+}
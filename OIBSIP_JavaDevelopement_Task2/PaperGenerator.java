@@ -0,0 +1,230 @@
+/**
+ * Builds randomized exam papers from a question bank.
+ * A paper takes a set number of questions of each difficulty from one
+ * subject and, where the bank allows it, at least one question for each
+ * topic tag to be covered. Question order and each question's option order
+ * are shuffled too. Everything is drawn from a generator seeded per paper,
+ * so a paper can always be regenerated from its seed.
+ * Generating into caller-supplied arrays allocates nothing. A generator keeps
+ * its random state between draws, so each thread needs its own.
+ */
+
+import java.nio.IntBuffer;
+
+public class PaperGenerator {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final int DIFFICULTIES = Difficulty.values().length;
+    private static final int MAX_RETRIES = 8;
+    
+    private final QuestionBank bank;
+    private final int paperSize;
+    private final int[] quotas = new int[DIFFICULTIES];
+    private final int[] groupStarts = new int[DIFFICULTIES];
+    private final int[] groupSizes = new int[DIFFICULTIES];
+    private final int[] coverTags;
+    // Posting list of each cover tag, and where each difficulty of the subject starts and ends in it
+    private final IntBuffer[] tagPostings;
+    private final int[][] tagRangeStarts;
+    private final int[][] tagRangeEnds;
+    
+    // Scratch state of the paper being generated
+    private final int[] remaining = new int[DIFFICULTIES];
+    private long state;
+    
+    // difficultyMix gives the number of questions wanted for each difficulty, EASY first.
+    // When the subject has too few questions of one difficulty, the others make up the shortfall.
+    public PaperGenerator(QuestionBank bank, String subject, int[] difficultyMix, String... coverTagNames) {
+        int subjectId = bank.findSubject(subject);
+        if (subjectId < 0) {
+            throw new IllegalArgumentException("No questions for subject " + subject);
+        }
+        this.bank = bank;
+        
+        int wanted = 0;
+        int shortfall = 0;
+        for (Difficulty difficulty : Difficulty.values()) {
+            int d = difficulty.ordinal();
+            groupStarts[d] = bank.firstQuestion(subjectId, difficulty);
+            groupSizes[d] = bank.questionCount(subjectId, difficulty);
+            quotas[d] = Math.min(difficultyMix[d], groupSizes[d]);
+            wanted += difficultyMix[d];
+            shortfall += difficultyMix[d] - quotas[d];
+        }
+        for (int d = 0; d < DIFFICULTIES && shortfall > 0; d++) {
+            int extra = Math.min(shortfall, groupSizes[d] - quotas[d]);
+            quotas[d] += extra;
+            shortfall -= extra;
+        }
+        if (shortfall > 0) {
+            throw new IllegalArgumentException("Subject " + subject + " has fewer than " + wanted + " questions");
+        }
+        paperSize = wanted;
+        
+        coverTags = new int[coverTagNames.length];
+        tagPostings = new IntBuffer[coverTagNames.length];
+        tagRangeStarts = new int[coverTagNames.length][DIFFICULTIES];
+        tagRangeEnds = new int[coverTagNames.length][DIFFICULTIES];
+        for (int t = 0; t < coverTagNames.length; t++) {
+            coverTags[t] = bank.findTag(coverTagNames[t]);
+            if (coverTags[t] < 0) {
+                throw new IllegalArgumentException("No questions tagged " + coverTagNames[t]);
+            }
+            tagPostings[t] = bank.questionsWithTag(coverTags[t]);
+            for (int d = 0; d < DIFFICULTIES; d++) {
+                tagRangeStarts[t][d] = lowerBound(tagPostings[t], groupStarts[d]);
+                tagRangeEnds[t][d] = lowerBound(tagPostings[t], groupStarts[d] + groupSizes[d]);
+            }
+        }
+    }
+    
+    public int getPaperSize() {
+        return paperSize;
+    }
+    
+    // Spreads exam seeds and candidate keys (a candidate number or a username's hash) over all seeds
+    public static long candidateSeed(long examSeed, long candidateKey) {
+        return mix(examSeed + mix(candidateKey + GOLDEN_GAMMA));
+    }
+    
+    public ExamPaper generate(long seed) {
+        int[] questionIds = new int[paperSize];
+        int[] optionOrders = new int[paperSize];
+        generate(seed, questionIds, optionOrders);
+        return new ExamPaper(seed, questionIds, optionOrders);
+    }
+    
+    public void generate(long seed, int[] questionIds, int[] optionOrders) {
+        state = seed;
+        System.arraycopy(quotas, 0, remaining, 0, DIFFICULTIES);
+        int count = 0;
+        
+        // One question per cover tag first, unless an earlier pick already has the tag
+        for (int t = 0; t < coverTags.length; t++) {
+            if (!isCovered(questionIds, count, coverTags[t])) {
+                int id = pickTagged(t, questionIds, count);
+                if (id >= 0) {
+                    remaining[bank.getDifficulty(id).ordinal()]--;
+                    questionIds[count++] = id;
+                }
+            }
+        }
+        
+        // Then fill each difficulty's quota from its run of ids
+        for (int d = 0; d < DIFFICULTIES; d++) {
+            for (; remaining[d] > 0; remaining[d]--) {
+                int id = pickUnused(groupStarts[d], groupSizes[d], questionIds, count);
+                questionIds[count++] = id;
+            }
+        }
+        
+        for (int i = count - 1; i > 0; i--) {
+            int j = nextInt(i + 1);
+            int id = questionIds[i];
+            questionIds[i] = questionIds[j];
+            questionIds[j] = id;
+        }
+        for (int i = 0; i < count; i++) {
+            optionOrders[i] = shuffledOrder(bank.getOptionCount(questionIds[i]));
+        }
+    }
+    
+    private boolean isCovered(int[] questionIds, int count, int tag) {
+        for (int i = 0; i < count; i++) {
+            if (bank.hasTag(questionIds[i], tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // A random question with cover tag t from a difficulty that still has room, or -1 if there is none
+    private int pickTagged(int t, int[] questionIds, int count) {
+        int candidates = 0;
+        for (int d = 0; d < DIFFICULTIES; d++) {
+            if (remaining[d] > 0) {
+                candidates += tagRangeEnds[t][d] - tagRangeStarts[t][d];
+            }
+        }
+        for (int attempt = 0; attempt < MAX_RETRIES && candidates > 0; attempt++) {
+            int pick = nextInt(candidates);
+            for (int d = 0; d < DIFFICULTIES; d++) {
+                if (remaining[d] == 0) {
+                    continue;
+                }
+                int size = tagRangeEnds[t][d] - tagRangeStarts[t][d];
+                if (pick < size) {
+                    int id = tagPostings[t].get(tagRangeStarts[t][d] + pick);
+                    if (!contains(questionIds, count, id)) {
+                        return id;
+                    }
+                    break;
+                }
+                pick -= size;
+            }
+        }
+        return -1;
+    }
+    
+    // A random id in [first, first + size) not yet on the paper; quotas guarantee one exists
+    private int pickUnused(int first, int size, int[] questionIds, int count) {
+        int offset = nextInt(size);
+        for (int attempt = 1; attempt < MAX_RETRIES && contains(questionIds, count, first + offset); attempt++) {
+            offset = nextInt(size);
+        }
+        // Nearly exhausted groups: walk on to the next free id
+        while (contains(questionIds, count, first + offset)) {
+            offset = offset + 1 == size ? 0 : offset + 1;
+        }
+        return first + offset;
+    }
+    
+    private int shuffledOrder(int optionCount) {
+        int order = 0;
+        for (int i = 0; i < optionCount; i++) {
+            order |= i << (i * 4);
+        }
+        for (int i = optionCount - 1; i > 0; i--) {
+            int j = nextInt(i + 1);
+            int a = (order >>> (i * 4)) & 0xF;
+            int b = (order >>> (j * 4)) & 0xF;
+            order ^= ((a ^ b) << (i * 4)) | ((a ^ b) << (j * 4));
+        }
+        return order;
+    }
+    
+    private static boolean contains(int[] ids, int count, int id) {
+        for (int i = 0; i < count; i++) {
+            if (ids[i] == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // First position in the sorted posting list holding an id >= id
+    private static int lowerBound(IntBuffer postings, int id) {
+        int low = 0;
+        int high = postings.limit();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (postings.get(middle) < id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+    
+    // SplitMix64
+    private int nextInt(int bound) {
+        state += GOLDEN_GAMMA;
+        return (int) (((mix(state) >>> 32) * bound) >>> 32);
+    }
+    
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Salted password hash for one account.
+ * Passwords are stored as PBKDF2 hashes and compared in constant time. The
+ * cost of new hashes is set with -Dexam.passwordIterations. Accounts are only
+ * kept in memory, so every hash is made at the current cost. Instances are
+ * immutable.
+ */
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+public final class PasswordCredential {
+    public static final int ITERATIONS = Integer.getInteger("exam.passwordIterations", 100000);
+    
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    
+    private final byte[] salt;
+    private final byte[] hash;
+    private final int iterations;
+    
+    private PasswordCredential(byte[] salt, byte[] hash, int iterations) {
+        this.salt = salt;
+        this.hash = hash;
+        this.iterations = iterations;
+    }
+    
+    public static PasswordCredential create(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        return new PasswordCredential(salt, pbkdf2(password, salt, ITERATIONS), ITERATIONS);
+    }
+    
+    public boolean matches(String password) {
+        return MessageDigest.isEqual(hash, pbkdf2(password, salt, iterations));
+    }
+    
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
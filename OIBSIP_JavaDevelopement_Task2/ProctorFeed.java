@@ -0,0 +1,222 @@
+/**
+ * Live progress of every exam in the hall, for proctors.
+ * Sessions publish small events (exam started, question answered, time up,
+ * submitted) into a lock-free ring buffer: publishing claims a slot with a
+ * single compare-and-set and never blocks, and when the ring is full the
+ * event is dropped and counted rather than making a candidate wait. One
+ * aggregator thread drains the ring, keeps the per-session state and
+ * publishes an immutable snapshot of the hall-wide figures. The aggregator
+ * only starts once a proctor subscribes; until then publishing does nothing.
+ */
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+public final class ProctorFeed {
+    static final int STARTED = 1;   // value: seconds left on the clock
+    static final int ANSWERED = 2;  // value: questions answered or skipped so far
+    static final int TIMED_OUT = 3;
+    static final int SUBMITTED = 4;
+    static final int SUSPENDED = 5; // the candidate disconnected and may resume later
+    
+    private static final int CAPACITY = 1 << 16; // power of two
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    // An idle aggregator parks for twice as long each time, up to this
+    private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    // Spins waiting for a claimed slot to be written before parking; a writer descheduled mid-publish
+    // could otherwise keep the aggregator spinning for a whole time slice
+    private static final int MAX_SPINS = 100;
+    private static final long SPIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    
+    // An event is packed into one long: session id (32 bits), type (4 bits), value (28 bits)
+    private static final AtomicLongArray EVENTS = new AtomicLongArray(CAPACITY);
+    // Sequence number each slot was last published with, so the reader never sees a half-written slot
+    private static final AtomicLongArray PUBLISHED = new AtomicLongArray(CAPACITY);
+    private static final AtomicLong CLAIMED = new AtomicLong();
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static volatile long consumed;
+    private static volatile HallStats stats = new HallStats(0, 0, 0, 0, 0, 0, 0);
+    private static volatile boolean subscribed;
+    
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            PUBLISHED.set(i, -1);
+        }
+    }
+    
+    // Hall-wide figures at one moment
+    public static class HallStats {
+        private final int inProgress;
+        private final int submitted;
+        private final int timedOut;
+        private final double averageAnswered;
+        private final long averageDeadline;
+        private final long events;
+        private final long droppedEvents;
+        
+        HallStats(int inProgress, int submitted, int timedOut, double averageAnswered,
+                  long averageDeadline, long events, long droppedEvents) {
+            this.inProgress = inProgress;
+            this.submitted = submitted;
+            this.timedOut = timedOut;
+            this.averageAnswered = averageAnswered;
+            this.averageDeadline = averageDeadline;
+            this.events = events;
+            this.droppedEvents = droppedEvents;
+        }
+        
+        public int getInProgress() {
+            return inProgress;
+        }
+        
+        public int getSubmitted() {
+            return submitted;
+        }
+        
+        // Submitted by the timer rather than by the candidate
+        public int getTimedOut() {
+            return timedOut;
+        }
+        
+        // Average number of questions answered or skipped by the exams in progress
+        public double getAverageAnswered() {
+            return averageAnswered;
+        }
+        
+        // Worked out when asked, so the clock keeps running between events
+        public long getAverageRemainingMillis() {
+            return inProgress == 0 ? 0 : Math.max(0, averageDeadline - System.currentTimeMillis());
+        }
+        
+        public long getEvents() {
+            return events;
+        }
+        
+        public long getDroppedEvents() {
+            return droppedEvents;
+        }
+    }
+    
+    private ProctorFeed() {
+    }
+    
+    // Starts the aggregator; events published before this are not counted
+    public static synchronized void subscribe() {
+        if (subscribed) {
+            return;
+        }
+        Thread aggregator = new Thread(ProctorFeed::aggregate, "proctor-feed");
+        aggregator.setDaemon(true);
+        aggregator.start();
+        subscribed = true;
+    }
+    
+    public static void publish(int session, int type, long value) {
+        if (!subscribed) {
+            return;
+        }
+        long event = ((long) session << 32) | ((long) type << 28) | Math.max(0, Math.min(value, 0x0FFFFFFF));
+        long sequence;
+        do {
+            sequence = CLAIMED.get();
+            if (sequence - consumed >= CAPACITY) {
+                DROPPED.incrementAndGet();
+                return;
+            }
+        } while (!CLAIMED.compareAndSet(sequence, sequence + 1));
+        int slot = (int) (sequence & (CAPACITY - 1));
+        EVENTS.lazySet(slot, event);
+        PUBLISHED.lazySet(slot, sequence);
+    }
+    
+    public static HallStats getStats() {
+        return stats;
+    }
+    
+    // Only ever runs on the aggregator thread
+    private static void aggregate() {
+        // Per running exam: questions answered, deadline
+        Map<Integer, long[]> running = new HashMap<>();
+        long answeredSum = 0;
+        long deadlineSum = 0;
+        int submitted = 0;
+        int timedOut = 0;
+        long next = 0;
+        long lastSnapshot = 0;
+        int spins = 0;
+        long idleNanos = IDLE_NANOS;
+        
+        while (true) {
+            int slot = (int) (next & (CAPACITY - 1));
+            if (PUBLISHED.get(slot) == next) {
+                long event = EVENTS.get(slot);
+                consumed = ++next;
+                spins = 0;
+                idleNanos = IDLE_NANOS;
+                int session = (int) (event >>> 32);
+                int type = (int) (event >>> 28) & 0xF;
+                long value = event & 0x0FFFFFFF;
+                long[] state = running.get(session);
+                switch (type) {
+                    case STARTED:
+                        if (state == null) {
+                            state = new long[2];
+                            running.put(session, state);
+                        } else {
+                            deadlineSum -= state[1];
+                        }
+                        state[1] = System.currentTimeMillis() + value * 1000;
+                        deadlineSum += state[1];
+                        break;
+                    case ANSWERED:
+                        if (state != null) {
+                            answeredSum += value - state[0];
+                            state[0] = value;
+                        }
+                        break;
+                    case TIMED_OUT:
+                        timedOut++;
+                        break;
+                    case SUBMITTED:
+                    case SUSPENDED:
+                        if (state != null) {
+                            running.remove(session);
+                            answeredSum -= state[0];
+                            deadlineSum -= state[1];
+                        }
+                        if (type == SUBMITTED) {
+                            submitted++;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+                // Under a steady stream of events, still refresh the snapshot every millisecond
+                if (System.nanoTime() - lastSnapshot < IDLE_NANOS) {
+                    continue;
+                }
+            } else if (CLAIMED.get() > next) {
+                // A slot was claimed but its event is not written yet; that usually takes nanoseconds
+                if (++spins < MAX_SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(SPIN_PARK_NANOS);
+                }
+                continue;
+            } else if (next == stats.getEvents() && DROPPED.get() == stats.getDroppedEvents()) {
+                LockSupport.parkNanos(idleNanos);
+                idleNanos = Math.min(idleNanos * 2, MAX_IDLE_NANOS);
+                continue;
+            }
+            
+            int inProgress = running.size();
+            stats = new HallStats(inProgress, submitted, timedOut,
+                                  inProgress == 0 ? 0 : (double) answeredSum / inProgress,
+                                  inProgress == 0 ? 0 : deadlineSum / inProgress, next, DROPPED.get());
+            lastSnapshot = System.nanoTime();
+        }
+    }
+}
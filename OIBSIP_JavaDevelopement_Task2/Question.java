@@ -1,18 +1,11 @@
 public class Question {
     private String questionText;
-    private String option1;
-    private String option2;
-    private String option3;
-    private String option4;
+    private String[] options;
     private int correctAnswer;
     
-    public Question(String questionText, String option1, String option2, 
-                   String option3, String option4, int correctAnswer) {
+    public Question(String questionText, String[] options, int correctAnswer) {
         this.questionText = questionText;
-        this.option1 = option1;
-        this.option2 = option2;
-        this.option3 = option3;
-        this.option4 = option4;
+        this.options = options;
         this.correctAnswer = correctAnswer;
     }
     
@@ -20,20 +13,13 @@ public class Question {
         return questionText;
     }
     
-    public String getOption1() {
-        return option1;
+    public int getOptionCount() {
+        return options.length;
     }
     
-    public String getOption2() {
-        return option2;
-    }
-    
-    public String getOption3() {
-        return option3;
-    }
-    
-    public String getOption4() {
-        return option4;
+    // Options are numbered from 1, as they are shown to the candidate
+    public String getOption(int number) {
+        return number >= 1 && number <= options.length ? options[number - 1] : "";
     }
     
     public int getCorrectAnswer() {
@@ -0,0 +1,217 @@
+/**
+ * Read-only question bank backed by a memory-mapped file.
+ * Opening a bank reads only the header and the subject and tag names, so it
+ * costs the same for five questions as for five hundred thousand. Questions
+ * of one subject and difficulty have consecutive ids, each tag has a sorted
+ * list of question ids, and a question's text is decoded only when
+ * getQuestion asks for it. The mapping is never written, so one bank can be
+ * shared by any number of exam sessions.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+
+public final class QuestionBank {
+    static final int FORMAT_MAGIC = 0x45585142; // "EXQB"
+    static final int FORMAT_VERSION = 1;
+    // magic, version, question count, subject count, tag count, then the section offsets
+    static final int HEADER_BYTES = 32;
+    // Index entry: body offset, subject, difficulty, unused byte, tag mask
+    static final int INDEX_ENTRY_BYTES = 16;
+    private static final int DIFFICULTIES = Difficulty.values().length;
+    
+    private final ByteBuffer buffer; // only ever read with absolute gets
+    private final int questionCount;
+    private final String[] subjects;
+    private final String[] tags;
+    private final int groupsOffset;
+    private final int tagDirectoryOffset;
+    private final int indexOffset;
+    
+    private QuestionBank(ByteBuffer buffer, int questionCount, String[] subjects, String[] tags,
+                         int groupsOffset, int tagDirectoryOffset, int indexOffset) {
+        this.buffer = buffer;
+        this.questionCount = questionCount;
+        this.subjects = subjects;
+        this.tags = tags;
+        this.groupsOffset = groupsOffset;
+        this.tagDirectoryOffset = tagDirectoryOffset;
+        this.indexOffset = indexOffset;
+    }
+    
+    public static QuestionBank open(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("Not a question bank: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt(0) != FORMAT_MAGIC) {
+            throw new IOException("Not a question bank: " + file);
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported question bank version " + buffer.getInt(4) + ": " + file);
+        }
+        
+        int questionCount = buffer.getInt(8);
+        String[] subjects = new String[buffer.getInt(12)];
+        String[] tags = new String[buffer.getInt(16)];
+        int groupsOffset = buffer.getInt(20);
+        int tagDirectoryOffset = buffer.getInt(24);
+        int indexOffset = buffer.getInt(28);
+        if ((long) indexOffset + (long) questionCount * INDEX_ENTRY_BYTES > buffer.capacity()) {
+            throw new IOException("Question bank is truncated: " + file);
+        }
+        
+        int offset = HEADER_BYTES;
+        for (int i = 0; i < subjects.length; i++) {
+            subjects[i] = getText(buffer, offset);
+            offset += 2 + getUnsignedShort(buffer, offset);
+        }
+        for (int i = 0; i < tags.length; i++) {
+            tags[i] = getText(buffer, offset);
+            offset += 2 + getUnsignedShort(buffer, offset);
+        }
+        return new QuestionBank(buffer, questionCount, subjects, tags,
+                                groupsOffset, tagDirectoryOffset, indexOffset);
+    }
+    
+    public int getQuestionCount() {
+        return questionCount;
+    }
+    
+    public int getSubjectCount() {
+        return subjects.length;
+    }
+    
+    public String getSubjectName(int subject) {
+        return subjects[subject];
+    }
+    
+    // Returns -1 when the bank has no such subject
+    public int findSubject(String name) {
+        for (int i = 0; i < subjects.length; i++) {
+            if (subjects[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    public int getTagCount() {
+        return tags.length;
+    }
+    
+    public String getTagName(int tag) {
+        return tags[tag];
+    }
+    
+    // Returns -1 when the bank has no such tag
+    public int findTag(String name) {
+        for (int i = 0; i < tags.length; i++) {
+            if (tags[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    // Questions of a subject and difficulty are ids firstQuestion .. firstQuestion + questionCount - 1
+    public int firstQuestion(int subject, Difficulty difficulty) {
+        return buffer.getInt(groupsOffset + (subject * DIFFICULTIES + difficulty.ordinal()) * 4);
+    }
+    
+    public int questionCount(int subject, Difficulty difficulty) {
+        int group = subject * DIFFICULTIES + difficulty.ordinal();
+        int end = group + 1 < subjects.length * DIFFICULTIES ? buffer.getInt(groupsOffset + (group + 1) * 4)
+                                                             : questionCount;
+        return end - firstQuestion(subject, difficulty);
+    }
+    
+    public int firstQuestion(int subject) {
+        return firstQuestion(subject, Difficulty.EASY);
+    }
+    
+    public int questionCount(int subject) {
+        int count = 0;
+        for (Difficulty difficulty : Difficulty.values()) {
+            count += questionCount(subject, difficulty);
+        }
+        return count;
+    }
+    
+    // Sorted ids of the questions with this tag, read straight from the mapping
+    public IntBuffer questionsWithTag(int tag) {
+        int entry = tagDirectoryOffset + tag * 8;
+        int offset = buffer.getInt(entry);
+        int count = buffer.getInt(entry + 4);
+        ByteBuffer postings = buffer.duplicate();
+        postings.position(offset).limit(offset + count * 4);
+        return postings.slice().asIntBuffer().asReadOnlyBuffer();
+    }
+    
+    public int getSubject(int id) {
+        return getUnsignedShort(buffer, indexEntry(id) + 4);
+    }
+    
+    public Difficulty getDifficulty(int id) {
+        return Difficulty.fromCode(buffer.get(indexEntry(id) + 6));
+    }
+    
+    public long getTagMask(int id) {
+        return buffer.getLong(indexEntry(id) + 8);
+    }
+    
+    public boolean hasTag(int id, int tag) {
+        return (getTagMask(id) & (1L << tag)) != 0;
+    }
+    
+    public int getOptionCount(int id) {
+        return buffer.get(buffer.getInt(indexEntry(id)));
+    }
+    
+    // Original option number (from 1) of the right answer, read without decoding the question
+    public int getCorrectAnswer(int id) {
+        return buffer.get(buffer.getInt(indexEntry(id)) + 1);
+    }
+    
+    // Decodes one question from its body: option count, correct option, then the texts
+    public Question getQuestion(int id) {
+        int offset = buffer.getInt(indexEntry(id));
+        int optionCount = buffer.get(offset);
+        int correctAnswer = buffer.get(offset + 1);
+        offset += 2;
+        String[] texts = new String[optionCount + 1];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = getText(buffer, offset);
+            offset += 2 + getUnsignedShort(buffer, offset);
+        }
+        return new Question(texts[0], Arrays.copyOfRange(texts, 1, texts.length), correctAnswer);
+    }
+    
+    private int indexEntry(int id) {
+        if (id < 0 || id >= questionCount) {
+            throw new IndexOutOfBoundsException("No question " + id + " in a bank of " + questionCount);
+        }
+        return indexOffset + id * INDEX_ENTRY_BYTES;
+    }
+    
+    private static int getUnsignedShort(ByteBuffer source, int offset) {
+        return source.getShort(offset) & 0xFFFF;
+    }
+    
+    private static String getText(ByteBuffer source, int offset) {
+        int length = getUnsignedShort(source, offset);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = source.get(offset + 2 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,298 @@
+/**
+ * Builds a question bank file for QuestionBank to open.
+ * Questions are collected in memory and written in one go, grouped by
+ * subject and then difficulty so each group is a contiguous run of ids.
+ * Their text is encoded into a shared byte arena as they are added, so a
+ * bank of millions of questions costs a few arrays, not millions of objects.
+ * Banks can also be built from a tab-separated source, one question per line:
+ * subject, difficulty, tags (separated by ;), question, two to eight options
+ * and the number of the correct option. Lines starting with # are ignored.
+ */
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+public class QuestionBankWriter {
+    private static final int MAX_TAGS = 64;
+    private static final int MAX_SUBJECTS = 0xFFFF;
+    private static final int MAX_TEXT_BYTES = 0xFFFF;
+    private static final int MIN_OPTIONS = 2;
+    private static final int DIFFICULTIES = Difficulty.values().length;
+    
+    private final Map<String, Integer> subjectIds = new LinkedHashMap<>();
+    private final Map<String, Integer> tagIds = new LinkedHashMap<>();
+    
+    // Bodies are packed into fixed-size chunks, so the arena grows without copying the text
+    // already in it. A body never straddles two chunks; the largest possible one fits in a chunk.
+    private static final int CHUNK_BITS = 20;
+    private static final int CHUNK_BYTES = 1 << CHUNK_BITS;
+    
+    // One column per field, in the order questions were added. Question i's body (option count,
+    // correct answer, then the question and option texts) is bodyLengths[i] bytes at bodyAddresses[i]
+    // (chunk number, then offset within the chunk), already encoded exactly as it is written to the file.
+    private int count;
+    private int[] subjects = new int[64];
+    private byte[] difficulties = new byte[64];
+    private long[] tagMasks = new long[64];
+    private int[] bodyAddresses = new int[64];
+    private int[] bodyLengths = new int[64];
+    private long bodyBytes;
+    private byte[][] chunks = new byte[16][];
+    private int chunkCount;
+    private int chunkUsed = CHUNK_BYTES; // nothing allocated yet
+    
+    public void add(String subject, Difficulty difficulty, Collection<String> tags,
+                    String questionText, String[] options, int correctAnswer) {
+        if (options.length < MIN_OPTIONS || options.length > ExamPaper.MAX_OPTIONS) {
+            throw new IllegalArgumentException("Expected " + MIN_OPTIONS + " to " + ExamPaper.MAX_OPTIONS +
+                                               " options, got " + options.length);
+        }
+        if (correctAnswer < 1 || correctAnswer > options.length) {
+            throw new IllegalArgumentException("Correct answer must be between 1 and " + options.length);
+        }
+        
+        long tagMask = 0;
+        for (String tag : tags) {
+            tagMask |= 1L << idOf(tagIds, tag, MAX_TAGS, "tags");
+        }
+        byte[][] texts = new byte[options.length + 1][];
+        int bodyLength = 2;
+        texts[0] = encode(questionText);
+        for (int i = 0; i < options.length; i++) {
+            texts[i + 1] = encode(options[i]);
+        }
+        for (byte[] text : texts) {
+            bodyLength += 2 + text.length;
+        }
+        int subjectId = idOf(subjectIds, subject, MAX_SUBJECTS, "subjects");
+        
+        int address = reserve(bodyLength);
+        byte[] bodies = chunks[address >>> CHUNK_BITS];
+        int position = address & (CHUNK_BYTES - 1);
+        bodies[position++] = (byte) options.length;
+        bodies[position++] = (byte) correctAnswer;
+        for (byte[] text : texts) {
+            bodies[position++] = (byte) (text.length >>> 8);
+            bodies[position++] = (byte) text.length;
+            System.arraycopy(text, 0, bodies, position, text.length);
+            position += text.length;
+        }
+        subjects[count] = subjectId;
+        difficulties[count] = (byte) difficulty.ordinal();
+        tagMasks[count] = tagMask;
+        bodyAddresses[count] = address;
+        bodyLengths[count] = bodyLength;
+        bodyBytes += bodyLength;
+        count++;
+    }
+    
+    // Makes room for one more question with a body of the given length and returns the body's address
+    private int reserve(int bodyLength) {
+        if (count == subjects.length) {
+            int capacity = subjects.length * 2;
+            subjects = Arrays.copyOf(subjects, capacity);
+            difficulties = Arrays.copyOf(difficulties, capacity);
+            tagMasks = Arrays.copyOf(tagMasks, capacity);
+            bodyAddresses = Arrays.copyOf(bodyAddresses, capacity);
+            bodyLengths = Arrays.copyOf(bodyLengths, capacity);
+        }
+        if (chunkUsed + bodyLength > CHUNK_BYTES) {
+            if (chunkCount == 1 << (31 - CHUNK_BITS)) {
+                throw new IllegalArgumentException("Question bank too large");
+            }
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunks.length * 2);
+            }
+            chunks[chunkCount++] = new byte[CHUNK_BYTES];
+            chunkUsed = 0;
+        }
+        int address = ((chunkCount - 1) << CHUNK_BITS) | chunkUsed;
+        chunkUsed += bodyLength;
+        return address;
+    }
+    
+    public int size() {
+        return count;
+    }
+    
+    public static QuestionBankWriter readTsv(Path source) throws IOException {
+        QuestionBankWriter writer = new QuestionBankWriter();
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t", -1);
+                if (fields.length < 5 + MIN_OPTIONS) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": expected at least " +
+                                                       (5 + MIN_OPTIONS) + " tab-separated fields");
+                }
+                try {
+                    List<String> tags = new ArrayList<>();
+                    for (String tag : fields[2].split(";")) {
+                        if (!tag.trim().isEmpty()) {
+                            tags.add(tag.trim());
+                        }
+                    }
+                    writer.add(fields[0].trim(), Difficulty.parse(fields[1]), tags, fields[3],
+                               Arrays.copyOfRange(fields, 4, fields.length - 1),
+                               Integer.parseInt(fields[fields.length - 1].trim()));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+        }
+        return writer;
+    }
+    
+    // Written to a temporary file and renamed, so a crash never leaves a half-written bank
+    public void writeTo(Path file) throws IOException {
+        int groups = subjectIds.size() * DIFFICULTIES;
+        int[] groupStarts = new int[groups + 1];
+        for (int i = 0; i < count; i++) {
+            groupStarts[groupKey(i) + 1]++;
+        }
+        for (int g = 0; g < groups; g++) {
+            groupStarts[g + 1] += groupStarts[g];
+        }
+        int[] order = groupOrder(groupStarts);
+        
+        // Tag posting lists, in id order
+        int[][] postings = new int[tagIds.size()][];
+        int[] postingCounts = new int[tagIds.size()];
+        for (int t = 0; t < postings.length; t++) {
+            postings[t] = new int[16];
+        }
+        for (int id = 0; id < order.length; id++) {
+            long mask = tagMasks[order[id]];
+            while (mask != 0) {
+                int tag = Long.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+                if (postingCounts[tag] == postings[tag].length) {
+                    postings[tag] = Arrays.copyOf(postings[tag], postings[tag].length * 2);
+                }
+                postings[tag][postingCounts[tag]++] = id;
+            }
+        }
+        
+        byte[] names = encodeNames();
+        int groupsOffset = QuestionBank.HEADER_BYTES + names.length;
+        int tagDirectoryOffset = groupsOffset + groups * 4;
+        int indexOffset = tagDirectoryOffset + tagIds.size() * 8;
+        long postingsOffset = indexOffset + (long) order.length * QuestionBank.INDEX_ENTRY_BYTES;
+        long bodiesOffset = postingsOffset;
+        for (int count : postingCounts) {
+            bodiesOffset += count * 4L;
+        }
+        long fileSize = bodiesOffset + bodyBytes;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("Question bank too large: " + fileSize + " bytes");
+        }
+        
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024))) {
+            out.writeInt(QuestionBank.FORMAT_MAGIC);
+            out.writeInt(QuestionBank.FORMAT_VERSION);
+            out.writeInt(order.length);
+            out.writeInt(subjectIds.size());
+            out.writeInt(tagIds.size());
+            out.writeInt(groupsOffset);
+            out.writeInt(tagDirectoryOffset);
+            out.writeInt(indexOffset);
+            out.write(names);
+            
+            for (int g = 0; g < groups; g++) {
+                out.writeInt(groupStarts[g]);
+            }
+            
+            int postingOffset = (int) postingsOffset;
+            for (int t = 0; t < postings.length; t++) {
+                out.writeInt(postingOffset);
+                out.writeInt(postingCounts[t]);
+                postingOffset += postingCounts[t] * 4;
+            }
+            
+            int bodyOffset = (int) bodiesOffset;
+            for (int index : order) {
+                out.writeInt(bodyOffset);
+                out.writeShort(subjects[index]);
+                out.writeByte(difficulties[index]);
+                out.writeByte(0);
+                out.writeLong(tagMasks[index]);
+                bodyOffset += bodyLengths[index];
+            }
+            
+            for (int t = 0; t < postings.length; t++) {
+                for (int i = 0; i < postingCounts[t]; i++) {
+                    out.writeInt(postings[t][i]);
+                }
+            }
+            
+            for (int index : order) {
+                int address = bodyAddresses[index];
+                out.write(chunks[address >>> CHUNK_BITS], address & (CHUNK_BYTES - 1), bodyLengths[index]);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    // Stable counting sort, so questions keep the order they were added in within a group
+    private int[] groupOrder(int[] groupStarts) {
+        int[] next = Arrays.copyOf(groupStarts, groupStarts.length);
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[next[groupKey(i)]++] = i;
+        }
+        return order;
+    }
+    
+    private int groupKey(int index) {
+        return subjects[index] * DIFFICULTIES + difficulties[index];
+    }
+    
+    private byte[] encodeNames() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (String name : subjectIds.keySet()) {
+            byte[] text = encode(name);
+            out.writeShort(text.length);
+            out.write(text);
+        }
+        for (String name : tagIds.keySet()) {
+            byte[] text = encode(name);
+            out.writeShort(text.length);
+            out.write(text);
+        }
+        return bytes.toByteArray();
+    }
+    
+    private static int idOf(Map<String, Integer> ids, String name, int limit, String what) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            if (ids.size() == limit) {
+                throw new IllegalArgumentException("A question bank holds at most " + limit + " " + what);
+            }
+            id = ids.size();
+            ids.put(name, id);
+        }
+        return id;
+    }
+    
+    private static byte[] encode(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_TEXT_BYTES) {
+            throw new IllegalArgumentException("Text longer than " + MAX_TEXT_BYTES + " bytes");
+        }
+        return bytes;
+    }
+}
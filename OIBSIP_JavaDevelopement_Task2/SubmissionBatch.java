@@ -0,0 +1,171 @@
+/**
+ * Submitted exams, stored column by column.
+ * Each submission's question ids, option orders and answers sit in one
+ * stretch of three flat arrays, found through the submission's start
+ * offset, so millions of submissions cost a few primitive arrays rather
+ * than millions of objects. Submitted exams are appended to a log file
+ * that readFrom loads back for regrading.
+ */
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+public class SubmissionBatch {
+    // Layout: magic and version, then per submission: username, paper seed,
+    // question count, question ids, option orders and answers (0 = skipped).
+    private static final int FORMAT_MAGIC = 0x45585342; // "EXSB"
+    private static final int FORMAT_VERSION = 1;
+    private static final Object APPEND_LOCK = new Object();
+    
+    private int count;
+    private String[] usernames = new String[16];
+    private long[] seeds = new long[16];
+    private int[] starts = new int[17];
+    private int[] questionIds = new int[64];
+    private int[] optionOrders = new int[64];
+    private byte[] answers = new byte[64];
+    
+    public void add(String username, ExamPaper paper, byte[] paperAnswers) {
+        int start = reserve(username, paper.getSeed(), paper.size());
+        for (int i = 0; i < paper.size(); i++) {
+            questionIds[start + i] = paper.getQuestionId(i);
+            optionOrders[start + i] = paper.getOptionOrder(i);
+        }
+        System.arraycopy(paperAnswers, 0, answers, start, paper.size());
+    }
+    
+    // Makes room for one more submission of the given size and returns where it starts
+    private int reserve(String username, long seed, int size) {
+        if (count + 1 == usernames.length) {
+            int capacity = usernames.length * 2;
+            usernames = Arrays.copyOf(usernames, capacity);
+            seeds = Arrays.copyOf(seeds, capacity);
+            starts = Arrays.copyOf(starts, capacity + 1);
+        }
+        int start = starts[count];
+        if (start + size > questionIds.length) {
+            int capacity = Math.max(questionIds.length * 2, start + size);
+            questionIds = Arrays.copyOf(questionIds, capacity);
+            optionOrders = Arrays.copyOf(optionOrders, capacity);
+            answers = Arrays.copyOf(answers, capacity);
+        }
+        usernames[count] = username;
+        seeds[count] = seed;
+        starts[count + 1] = start + size;
+        count++;
+        return start;
+    }
+    
+    public int size() {
+        return count;
+    }
+    
+    public String getUsername(int submission) {
+        return usernames[submission];
+    }
+    
+    public long getSeed(int submission) {
+        return seeds[submission];
+    }
+    
+    // Submission s covers positions getStart(s) .. getStart(s + 1) - 1 of the arrays below
+    public int getStart(int submission) {
+        return starts[submission];
+    }
+    
+    public int[] getQuestionIds() {
+        return questionIds;
+    }
+    
+    public int[] getOptionOrders() {
+        return optionOrders;
+    }
+    
+    public byte[] getAnswers() {
+        return answers;
+    }
+    
+    public static void append(Path file, String username, ExamPaper paper, byte[] paperAnswers)
+            throws IOException {
+        synchronized (APPEND_LOCK) {
+            boolean newFile = !Files.exists(file) || Files.size(file) == 0;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                         Channels.newOutputStream(channel)))) {
+                if (newFile) {
+                    out.writeInt(FORMAT_MAGIC);
+                    out.writeInt(FORMAT_VERSION);
+                }
+                out.writeUTF(username);
+                out.writeLong(paper.getSeed());
+                out.writeInt(paper.size());
+                for (int i = 0; i < paper.size(); i++) {
+                    out.writeInt(paper.getQuestionId(i));
+                }
+                for (int i = 0; i < paper.size(); i++) {
+                    out.writeInt(paper.getOptionOrder(i));
+                }
+                out.write(paperAnswers, 0, paper.size());
+                // On disk before returning, since callers delete the autosave next
+                out.flush();
+                channel.force(false);
+            }
+        }
+    }
+    
+    // Stops at the first submission that was cut short by a crash or is damaged; everything before it is kept
+    public static SubmissionBatch readFrom(Path file) throws IOException {
+        SubmissionBatch batch = new SubmissionBatch();
+        if (!Files.exists(file) || Files.size(file) == 0) {
+            return batch;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            if (in.readInt() != FORMAT_MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a submissions file: " + file);
+            }
+            while (true) {
+                String username;
+                try {
+                    username = in.readUTF();
+                } catch (EOFException e) {
+                    break;
+                }
+                int start = -1;
+                boolean valid = true;
+                try {
+                    long seed = in.readLong();
+                    int size = in.readInt();
+                    if (size <= 0 || size > ExamPaper.MAX_QUESTIONS) {
+                        break;
+                    }
+                    start = batch.reserve(username, seed, size);
+                    for (int i = 0; i < size; i++) {
+                        int questionId = in.readInt();
+                        batch.questionIds[start + i] = questionId;
+                        valid &= questionId >= 0;
+                    }
+                    for (int i = 0; i < size; i++) {
+                        batch.optionOrders[start + i] = in.readInt();
+                    }
+                    in.readFully(batch.answers, start, size);
+                    for (int i = start; i < start + size; i++) {
+                        valid &= batch.answers[i] >= 0 && batch.answers[i] <= ExamPaper.MAX_OPTIONS;
+                    }
+                } catch (EOFException e) {
+                    valid = false;
+                }
+                if (!valid) {
+                    if (start >= 0) {
+                        batch.count--;
+                    }
+                    break;
+                }
+            }
+        }
+        return batch;
+    }
+}
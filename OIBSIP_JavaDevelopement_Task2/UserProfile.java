@@ -1,13 +1,17 @@
-
-public class UserProfile {
-    private String username;
-    private String password;
-    private String fullName;
-    private String email;
-    
-    public UserProfile(String username, String password, String fullName, String email) {
+/**
+ * One candidate's account. Profiles are immutable: an update makes a new
+ * profile that replaces the old one in the CredentialStore, so a session
+ * never sees a half-applied change made by another.
+ */
+public final class UserProfile {
+    private final String username;
+    private final PasswordCredential credential;
+    private final String fullName;
+    private final String email;
+    
+    public UserProfile(String username, PasswordCredential credential, String fullName, String email) {
         this.username = username;
-        this.password = password;
+        this.credential = credential;
         this.fullName = fullName;
         this.email = email;
     }
@@ -16,27 +20,27 @@ public class UserProfile {
         return username;
     }
     
-    public String getPassword() {
-        return password;
+    public PasswordCredential getCredential() {
+        return credential;
     }
     
-    public void setPassword(String password) {
-        this.password = password;
+    public UserProfile withCredential(PasswordCredential credential) {
+        return new UserProfile(username, credential, fullName, email);
     }
     
     public String getFullName() {
         return fullName;
     }
     
-    public void setFullName(String fullName) {
-        this.fullName = fullName;
+    public UserProfile withFullName(String fullName) {
+        return new UserProfile(username, credential, fullName, email);
     }
     
     public String getEmail() {
         return email;
     }
     
-    public void setEmail(String email) {
-        this.email = email;
+    public UserProfile withEmail(String email) {
+        return new UserProfile(username, credential, fullName, email);
     }
 }
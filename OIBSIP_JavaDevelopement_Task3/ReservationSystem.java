@@ -5,11 +5,13 @@
  * Created for: OIBSIP Java Development Internship
  */
 
+import java.io.PrintStream;
 import java.util.*;
 import java.text.SimpleDateFormat;
 
 public class ReservationSystem {
-    private static Scanner input = new Scanner(System.in);
+    private static final PrintStream out = ConsoleRenderer.screen();
+    private static Scanner input = new Scanner(ConsoleRenderer.input(System.in));
     private static Map<String, User> userDatabase = new HashMap<>();
     private static Map<String, Reservation> reservationDatabase = new HashMap<>();
     private static Map<String, Train> trainDatabase = new HashMap<>();
@@ -43,18 +45,18 @@ public class ReservationSystem {
     }
     
     private static void displayWelcomeBanner() {
-        System.out.println("\n" + repeatChar('=', 55));
-        System.out.println("       WELCOME TO ONLINE RESERVATION SYSTEM");
-        System.out.println("           Book Your Journey With Ease");
-        System.out.println(repeatChar('=', 55));
+        out.println("\n" + repeatChar('=', 55));
+        out.println("       WELCOME TO ONLINE RESERVATION SYSTEM");
+        out.println("           Book Your Journey With Ease");
+        out.println(repeatChar('=', 55));
     }
     
     private static void handleLoginProcess() {
-        System.out.println("\nPlease authenticate to continue:");
-        System.out.println("1. Login to your account");
-        System.out.println("2. View sample credentials");
-        System.out.println("3. Exit application");
-        System.out.print("\nEnter your choice: ");
+        out.println("\nPlease authenticate to continue:");
+        out.println("1. Login to your account");
+        out.println("2. View sample credentials");
+        out.println("3. Exit application");
+        out.print("\nEnter your choice: ");
         
         try {
             int option = Integer.parseInt(input.nextLine().trim());
@@ -70,31 +72,31 @@ public class ReservationSystem {
                     exitApplication();
                     break;
                 default:
-                    System.out.println("Invalid choice. Please select 1, 2, or 3.");
+                    out.println("Invalid choice. Please select 1, 2, or 3.");
             }
         } catch (NumberFormatException e) {
-            System.out.println("Invalid input. Please enter a number.");
+            out.println("Invalid input. Please enter a number.");
         }
     }
     
     private static void performLogin() {
-        System.out.println("\n" + repeatChar('-', 40));
-        System.out.println("           USER LOGIN");
-        System.out.println(repeatChar('-', 40));
+        out.println("\n" + repeatChar('-', 40));
+        out.println("           USER LOGIN");
+        out.println(repeatChar('-', 40));
         
-        System.out.print("Enter Login ID: ");
+        out.print("Enter Login ID: ");
         String loginId = input.nextLine().trim();
         
-        System.out.print("Enter Password: ");
+        out.print("Enter Password: ");
         String password = input.nextLine().trim();
         
         if (validateCredentials(loginId, password)) {
             currentUser = userDatabase.get(loginId);
-            System.out.println("\nLogin successful!");
-            System.out.println("Welcome, " + currentUser.getName());
+            out.println("\nLogin successful!");
+            out.println("Welcome, " + currentUser.getName());
         } else {
-            System.out.println("\nLogin failed!");
-            System.out.println("Invalid login ID or password. Please try again.");
+            out.println("\nLogin failed!");
+            out.println("Invalid login ID or password. Please try again.");
         }
     }
     
@@ -104,24 +106,24 @@ public class ReservationSystem {
     }
     
     private static void displaySampleCredentials() {
-        System.out.println("\n" + repeatChar('=', 50));
-        System.out.println("         SAMPLE USER CREDENTIALS");
-        System.out.println(repeatChar('=', 50));
-        System.out.println("Login ID: user1  |  Password: pass123");
-        System.out.println("Login ID: user2  |  Password: pass456");
-        System.out.println(repeatChar('=', 50));
+        out.println("\n" + repeatChar('=', 50));
+        out.println("         SAMPLE USER CREDENTIALS");
+        out.println(repeatChar('=', 50));
+        out.println("Login ID: user1  |  Password: pass123");
+        out.println("Login ID: user2  |  Password: pass456");
+        out.println(repeatChar('=', 50));
     }
     
     private static void displayMainMenu() {
-        System.out.println("\n" + repeatChar('=', 50));
-        System.out.println("RESERVATION SYSTEM MENU");
-        System.out.println("User: " + currentUser.getLoginId() + 
+        out.println("\n" + repeatChar('=', 50));
+        out.println("RESERVATION SYSTEM MENU");
+        out.println("User: " + currentUser.getLoginId() + 
                          " | " + currentUser.getName());
-        System.out.println(repeatChar('=', 50));
-        System.out.println("1. Make Reservation");
-        System.out.println("2. Cancel Reservation");
-        System.out.println("3. Logout");
-        System.out.print("\nSelect an option: ");
+        out.println(repeatChar('=', 50));
+        out.println("1. Make Reservation");
+        out.println("2. Cancel Reservation");
+        out.println("3. Logout");
+        out.print("\nSelect an option: ");
         
         try {
             int choice = Integer.parseInt(input.nextLine().trim());
@@ -137,70 +139,70 @@ public class ReservationSystem {
                     performLogout();
                     break;
                 default:
-                    System.out.println("Invalid option. Please select 1-3.");
+                    out.println("Invalid option. Please select 1-3.");
             }
         } catch (NumberFormatException e) {
-            System.out.println("Invalid input. Please enter a number.");
+            out.println("Invalid input. Please enter a number.");
         }
     }
     
     private static void makeReservation() {
-        System.out.println("\n" + repeatChar('=', 60));
-        System.out.println("TRAIN RESERVATION FORM");
-        System.out.println(repeatChar('=', 60));
+        out.println("\n" + repeatChar('=', 60));
+        out.println("TRAIN RESERVATION FORM");
+        out.println(repeatChar('=', 60));
         
         // Basic Details
-        System.out.print("Enter Passenger Name: ");
+        out.print("Enter Passenger Name: ");
         String passengerName = input.nextLine().trim();
         
         if (passengerName.isEmpty()) {
-            System.out.println("Passenger name cannot be empty!");
+            out.println("Passenger name cannot be empty!");
             return;
         }
         
-        System.out.print("Enter Age: ");
+        out.print("Enter Age: ");
         String age = input.nextLine().trim();
         
-        System.out.print("Enter Gender (M/F): ");
+        out.print("Enter Gender (M/F): ");
         String gender = input.nextLine().trim().toUpperCase();
         
         // Display available trains
-        System.out.println("\n" + repeatChar('-', 60));
-        System.out.println("AVAILABLE TRAINS");
-        System.out.println(repeatChar('-', 60));
-        System.out.printf("%-10s %-25s %-15s %-15s%n", 
+        out.println("\n" + repeatChar('-', 60));
+        out.println("AVAILABLE TRAINS");
+        out.println(repeatChar('-', 60));
+        out.printf("%-10s %-25s %-15s %-15s%n", 
                          "Train No", "Train Name", "From", "To");
-        System.out.println(repeatChar('-', 60));
+        out.println(repeatChar('-', 60));
         
         for (Train train : trainDatabase.values()) {
-            System.out.printf("%-10s %-25s %-15s %-15s%n",
+            out.printf("%-10s %-25s %-15s %-15s%n",
                 train.getTrainNumber(),
                 train.getTrainName(),
                 train.getFromStation(),
                 train.getToStation()
             );
         }
-        System.out.println(repeatChar('-', 60));
+        out.println(repeatChar('-', 60));
         
         // Train Number
-        System.out.print("\nEnter Train Number: ");
+        out.print("\nEnter Train Number: ");
         String trainNumber = input.nextLine().trim();
         
         Train selectedTrain = trainDatabase.get(trainNumber);
         if (selectedTrain == null) {
-            System.out.println("Invalid train number!");
+            out.println("Invalid train number!");
             return;
         }
         
-        System.out.println("Train Name: " + selectedTrain.getTrainName());
+        out.println("Train Name: " + selectedTrain.getTrainName());
         
         // Class Type
-        System.out.println("\nAvailable Classes:");
-        System.out.println("1. Sleeper Class (SL)");
-        System.out.println("2. AC 3 Tier (3A)");
-        System.out.println("3. AC 2 Tier (2A)");
-        System.out.println("4. AC 1 Tier (1A)");
-        System.out.print("Select Class Type (1-4): ");
+        out.println("\nAvailable Classes:");
+        out.println("1. Sleeper Class (SL)");
+        out.println("2. AC 3 Tier (3A)");
+        out.println("3. AC 2 Tier (2A)");
+        out.println("4. AC 1 Tier (1A)");
+        out.print("Select Class Type (1-4): ");
         
         String classType = "";
         try {
@@ -211,21 +213,21 @@ public class ReservationSystem {
                 case 3: classType = "AC 2 Tier"; break;
                 case 4: classType = "AC 1 Tier"; break;
                 default:
-                    System.out.println("Invalid class selection!");
+                    out.println("Invalid class selection!");
                     return;
             }
         } catch (NumberFormatException e) {
-            System.out.println("Invalid input!");
+            out.println("Invalid input!");
             return;
         }
         
         // Date of Journey
-        System.out.print("Enter Date of Journey (DD/MM/YYYY): ");
+        out.print("Enter Date of Journey (DD/MM/YYYY): ");
         String dateOfJourney = input.nextLine().trim();
         
         // From and To
-        System.out.println("From: " + selectedTrain.getFromStation());
-        System.out.println("To: " + selectedTrain.getToStation());
+        out.println("From: " + selectedTrain.getFromStation());
+        out.println("To: " + selectedTrain.getToStation());
         
         // Generate PNR
         String pnr = "PNR" + (pnrCounter++);
@@ -247,90 +249,86 @@ public class ReservationSystem {
         
         reservationDatabase.put(pnr, reservation);
         
-        System.out.println("\n" + repeatChar('=', 60));
-        System.out.println("RESERVATION SUCCESSFUL!");
-        System.out.println(repeatChar('=', 60));
-        System.out.println("PNR Number: " + pnr);
-        System.out.println("Passenger Name: " + passengerName);
-        System.out.println("Train: " + selectedTrain.getTrainName() + " (" + trainNumber + ")");
-        System.out.println("Class: " + classType);
-        System.out.println("Date: " + dateOfJourney);
-        System.out.println("From: " + selectedTrain.getFromStation());
-        System.out.println("To: " + selectedTrain.getToStation());
-        System.out.println(repeatChar('=', 60));
-        System.out.println("Please save your PNR number for future reference.");
+        out.println("\n" + repeatChar('=', 60));
+        out.println("RESERVATION SUCCESSFUL!");
+        out.println(repeatChar('=', 60));
+        out.println("PNR Number: " + pnr);
+        out.println("Passenger Name: " + passengerName);
+        out.println("Train: " + selectedTrain.getTrainName() + " (" + trainNumber + ")");
+        out.println("Class: " + classType);
+        out.println("Date: " + dateOfJourney);
+        out.println("From: " + selectedTrain.getFromStation());
+        out.println("To: " + selectedTrain.getToStation());
+        out.println(repeatChar('=', 60));
+        out.println("Please save your PNR number for future reference.");
     }
     
     private static void cancelReservation() {
-        System.out.println("\n" + repeatChar('=', 60));
-        System.out.println("CANCELLATION FORM");
-        System.out.println(repeatChar('=', 60));
+        out.println("\n" + repeatChar('=', 60));
+        out.println("CANCELLATION FORM");
+        out.println(repeatChar('=', 60));
         
-        System.out.print("Enter PNR Number: ");
+        out.print("Enter PNR Number: ");
         String pnr = input.nextLine().trim();
         
         Reservation reservation = reservationDatabase.get(pnr);
         
         if (reservation == null) {
-            System.out.println("\nNo reservation found with PNR: " + pnr);
+            out.println("\nNo reservation found with PNR: " + pnr);
             return;
         }
         
         // Display reservation details
-        System.out.println("\n" + repeatChar('-', 60));
-        System.out.println("RESERVATION DETAILS");
-        System.out.println(repeatChar('-', 60));
-        System.out.println("PNR Number: " + reservation.getPnr());
-        System.out.println("Passenger Name: " + reservation.getPassengerName());
-        System.out.println("Age: " + reservation.getAge());
-        System.out.println("Gender: " + reservation.getGender());
-        System.out.println("Train Number: " + reservation.getTrainNumber());
-        System.out.println("Train Name: " + reservation.getTrainName());
-        System.out.println("Class: " + reservation.getClassType());
-        System.out.println("Date of Journey: " + reservation.getDateOfJourney());
-        System.out.println("From: " + reservation.getFromStation());
-        System.out.println("To: " + reservation.getToStation());
-        System.out.println(repeatChar('-', 60));
-        
-        System.out.print("\nDo you want to confirm cancellation? (yes/no): ");
+        out.println("\n" + repeatChar('-', 60));
+        out.println("RESERVATION DETAILS");
+        out.println(repeatChar('-', 60));
+        out.println("PNR Number: " + reservation.getPnr());
+        out.println("Passenger Name: " + reservation.getPassengerName());
+        out.println("Age: " + reservation.getAge());
+        out.println("Gender: " + reservation.getGender());
+        out.println("Train Number: " + reservation.getTrainNumber());
+        out.println("Train Name: " + reservation.getTrainName());
+        out.println("Class: " + reservation.getClassType());
+        out.println("Date of Journey: " + reservation.getDateOfJourney());
+        out.println("From: " + reservation.getFromStation());
+        out.println("To: " + reservation.getToStation());
+        out.println(repeatChar('-', 60));
+        
+        out.print("\nDo you want to confirm cancellation? (yes/no): ");
         String confirmation = input.nextLine().trim().toLowerCase();
         
         if (confirmation.equals("yes")) {
             reservationDatabase.remove(pnr);
-            System.out.println("\n" + repeatChar('=', 60));
-            System.out.println("CANCELLATION SUCCESSFUL!");
-            System.out.println(repeatChar('=', 60));
-            System.out.println("PNR " + pnr + " has been cancelled.");
-            System.out.println("Refund will be processed within 7 working days.");
+            out.println("\n" + repeatChar('=', 60));
+            out.println("CANCELLATION SUCCESSFUL!");
+            out.println(repeatChar('=', 60));
+            out.println("PNR " + pnr + " has been cancelled.");
+            out.println("Refund will be processed within 7 working days.");
         } else {
-            System.out.println("\nCancellation aborted.");
+            out.println("\nCancellation aborted.");
         }
     }
     
     private static void performLogout() {
-        System.out.println("\nLogging out...");
-        System.out.println("Thank you for using our reservation system, " + 
+        out.println("\nLogging out...");
+        out.println("Thank you for using our reservation system, " + 
                          currentUser.getName() + "!");
         
         currentUser = null;
         
-        System.out.println("\n" + repeatChar('=', 50));
-        System.out.println("Session terminated successfully.");
-        System.out.println("Have a great day!");
-        System.out.println(repeatChar('=', 50));
+        out.println("\n" + repeatChar('=', 50));
+        out.println("Session terminated successfully.");
+        out.println("Have a great day!");
+        out.println(repeatChar('=', 50));
     }
     
     private static void exitApplication() {
-        System.out.println("\nThank you for using our Online Reservation System!");
-        System.out.println("Goodbye!");
+        out.println("\nThank you for using our Online Reservation System!");
+        out.println("Goodbye!");
         System.exit(0);
     }
     
     private static String repeatChar(char ch, int count) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < count; i++) {
-            sb.append(ch);
-        }
-        return sb.toString();
+        return ConsoleRenderer.rule(ch, count);
     }
 }
@@ -0,0 +1,57 @@
+/**
+ * Buffered console output shared by every screen of the application.
+ * Screens are composed into one reusable buffer and written to the terminal
+ * in a single flush, right before the program blocks waiting for input,
+ * instead of a locked write and flush for every println. Separator lines
+ * are built once per character and width and then reused.
+ */
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class ConsoleRenderer {
+    private static final int BUFFER_BYTES = 16 * 1024;
+    private static final PrintStream SCREEN = new PrintStream(
+        new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), BUFFER_BYTES), false);
+    private static final Map<Integer, String> RULES = new ConcurrentHashMap<>();
+    
+    static {
+        // System.exit and uncaught exceptions must not lose the last screen
+        Runtime.getRuntime().addShutdownHook(new Thread(SCREEN::flush));
+    }
+    
+    private ConsoleRenderer() {
+    }
+    
+    public static PrintStream screen() {
+        return SCREEN;
+    }
+    
+    // Keyboard input that pushes the pending screen out before every read
+    public static InputStream input(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                SCREEN.flush();
+                return super.read();
+            }
+            
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                SCREEN.flush();
+                return super.read(buffer, offset, length);
+            }
+        };
+    }
+    
+    // A line of count copies of ch, e.g. rule('=', 50)
+    public static String rule(char ch, int count) {
+        return RULES.computeIfAbsent((ch << 16) | count, key -> {
+            char[] line = new char[count];
+            Arrays.fill(line, ch);
+            return new String(line);
+        });
+    }
+}